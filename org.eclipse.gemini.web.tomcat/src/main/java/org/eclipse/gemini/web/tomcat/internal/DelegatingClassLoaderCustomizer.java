@@ -21,11 +21,15 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.gemini.web.tomcat.internal.loader.ChainedClassLoader;
 import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 import org.osgi.util.tracker.ServiceTrackerCustomizer;
@@ -38,17 +42,28 @@ final class DelegatingClassLoaderCustomizer implements ClassLoaderCustomizer {
 
     private volatile Set<ClassLoaderCustomizer> delegate;
 
+    /**
+     * The throwaway class loaders created for the web application bundles, keyed by bundle id. A throwaway class loader
+     * is reused as long as the revision of the bundle and the set of customizers remain the same.
+     */
+    private final ConcurrentMap<Long, ThrowawayClassLoader> throwawayClassLoaders = new ConcurrentHashMap<>();
+
+    private final BundleListener throwawayClassLoaderReleaser = new ThrowawayClassLoaderReleaser();
+
     public DelegatingClassLoaderCustomizer(BundleContext context) {
         this.context = context;
         this.tracker = new ServiceTracker<>(context, ClassLoaderCustomizer.class.getName(), new Customizer());
     }
 
     public void open() {
+        this.context.addBundleListener(this.throwawayClassLoaderReleaser);
         this.tracker.open();
     }
 
     public void close() {
         this.tracker.close();
+        this.context.removeBundleListener(this.throwawayClassLoaderReleaser);
+        this.throwawayClassLoaders.clear();
     }
 
     @Override
@@ -62,6 +77,31 @@ final class DelegatingClassLoaderCustomizer implements ClassLoaderCustomizer {
 
     @Override
     public ClassLoader createThrowawayClassLoader(Bundle bundle) {
+        Long bundleId = bundle.getBundleId();
+        long revision = bundle.getLastModified();
+        ThrowawayClassLoader throwawayClassLoader = this.throwawayClassLoaders.get(bundleId);
+        if (throwawayClassLoader != null && throwawayClassLoader.revision == revision) {
+            return throwawayClassLoader.classLoader;
+        }
+
+        ClassLoader classLoader = doCreateThrowawayClassLoader(bundle);
+        if (classLoader != null) {
+            this.throwawayClassLoaders.put(bundleId, new ThrowawayClassLoader(classLoader, revision));
+        }
+        return classLoader;
+    }
+
+    /**
+     * Releases the throwaway class loader of a web application bundle whose web application has been stopped, so that
+     * the classes defined by it can be unloaded.
+     *
+     * @param bundle the web application bundle
+     */
+    public void releaseThrowawayClassLoader(Bundle bundle) {
+        this.throwawayClassLoaders.remove(bundle.getBundleId());
+    }
+
+    private ClassLoader doCreateThrowawayClassLoader(Bundle bundle) {
         if (this.delegate != null && this.delegate.size() > 0) {
             Set<ClassLoader> result = new HashSet<>();
             for (ClassLoaderCustomizer classLoaderCustomizer : this.delegate) {
@@ -87,6 +127,38 @@ final class DelegatingClassLoaderCustomizer implements ClassLoaderCustomizer {
         return new ClassLoader[0];
     }
 
+    private static final class ThrowawayClassLoader {
+
+        private final ClassLoader classLoader;
+
+        private final long revision;
+
+        private ThrowawayClassLoader(ClassLoader classLoader, long revision) {
+            this.classLoader = classLoader;
+            this.revision = revision;
+        }
+    }
+
+    /**
+     * Releases the throwaway class loader of a bundle which is updated, unresolved or uninstalled, so that the classes
+     * defined by it can be unloaded.
+     */
+    private class ThrowawayClassLoaderReleaser implements BundleListener {
+
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            switch (event.getType()) {
+                case BundleEvent.UPDATED:
+                case BundleEvent.UNRESOLVED:
+                case BundleEvent.UNINSTALLED:
+                    DelegatingClassLoaderCustomizer.this.throwawayClassLoaders.remove(event.getBundle().getBundleId());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
     private class Customizer implements ServiceTrackerCustomizer<ClassLoaderCustomizer, Object> {
 
         @Override
@@ -98,6 +170,7 @@ final class DelegatingClassLoaderCustomizer implements ClassLoaderCustomizer {
             }
 
             DelegatingClassLoaderCustomizer.this.delegate.add(newDelegate);
+            DelegatingClassLoaderCustomizer.this.throwawayClassLoaders.clear();
 
             return newDelegate;
         }
@@ -112,6 +185,7 @@ final class DelegatingClassLoaderCustomizer implements ClassLoaderCustomizer {
             if (DelegatingClassLoaderCustomizer.this.delegate != null) {
                 DelegatingClassLoaderCustomizer.this.delegate.remove(DelegatingClassLoaderCustomizer.this.context.getService(reference));
             }
+            DelegatingClassLoaderCustomizer.this.throwawayClassLoaders.clear();
 
             DelegatingClassLoaderCustomizer.this.context.ungetService(reference);
         }
@@ -19,7 +19,11 @@ package org.eclipse.gemini.web.tomcat.internal;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Loader;
 import org.apache.catalina.core.StandardContext;
+import org.eclipse.gemini.web.tomcat.internal.loader.BundleWebappLoader;
+import org.eclipse.gemini.web.tomcat.internal.support.WarmUpProfile;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.wiring.FrameworkWiring;
 import org.slf4j.Logger;
@@ -36,11 +40,50 @@ class ExtendedStandardContext extends StandardContext {
 
     private final Bundle bundle;
 
+    private volatile WarmUpProfile warmUpProfile;
+
     ExtendedStandardContext(Bundle bundle) {
         super();
         this.bundle = bundle;
     }
 
+    /**
+     * Sets the profile which is shared by the resources and the loader of this context. The context is made available
+     * only after the prefetching started by them has completed, and the profile is stored when the context is stopped.
+     *
+     * @param warmUpProfile the profile or <code>null</code> if no profile should be recorded
+     */
+    void setWarmUpProfile(WarmUpProfile warmUpProfile) {
+        this.warmUpProfile = warmUpProfile;
+    }
+
+    @Override
+    protected synchronized void startInternal() throws LifecycleException {
+        super.startInternal();
+
+        // The listeners and the servlets have registered their class file transformers by now. The preloading is
+        // awaited by the container once the context has been started, outside of the monitor of the context.
+        Loader loader = getLoader();
+        if (loader instanceof BundleWebappLoader) {
+            ((BundleWebappLoader) loader).startPreload();
+        }
+
+        WarmUpProfile profile = this.warmUpProfile;
+        if (profile != null) {
+            profile.awaitWarmUp();
+        }
+    }
+
+    @Override
+    protected synchronized void stopInternal() throws LifecycleException {
+        WarmUpProfile profile = this.warmUpProfile;
+        if (profile != null) {
+            profile.store();
+        }
+
+        super.stopInternal();
+    }
+
     @Override
     public synchronized void reload() {
         if (!getState().isAvailable()) {
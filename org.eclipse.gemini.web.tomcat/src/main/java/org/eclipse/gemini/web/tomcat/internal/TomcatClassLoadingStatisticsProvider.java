@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.Context;
+import org.apache.catalina.Host;
+import org.apache.catalina.Loader;
+import org.eclipse.gemini.web.tomcat.internal.loader.BundleWebappClassLoader;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoadingStatistics;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoadingStatisticsProvider;
+import org.osgi.framework.Bundle;
+
+/**
+ * {@link ClassLoadingStatisticsProvider} which finds the class loader of a web application bundle among the contexts
+ * of the Tomcat host.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class TomcatClassLoadingStatisticsProvider implements ClassLoadingStatisticsProvider {
+
+    private final Host host;
+
+    TomcatClassLoadingStatisticsProvider(Host host) {
+        this.host = host;
+    }
+
+    @Override
+    public ClassLoadingStatistics getClassLoadingStatistics(Bundle webBundle) {
+        for (Container child : this.host.findChildren()) {
+            if (!(child instanceof Context) || !child.getState().isAvailable()) {
+                continue;
+            }
+
+            Loader loader = ((Context) child).getLoader();
+            ClassLoader classLoader = loader != null ? loader.getClassLoader() : null;
+            if (classLoader instanceof BundleWebappClassLoader && webBundle.equals(((BundleWebappClassLoader) classLoader).getBundle())) {
+                return ((BundleWebappClassLoader) classLoader).getClassLoadingStatistics();
+            }
+        }
+        return null;
+    }
+}
@@ -18,31 +18,155 @@ package org.eclipse.gemini.web.tomcat.internal;
 
 import java.io.File;
 
+import javax.management.ObjectName;
 import javax.servlet.ServletContext;
 
 import org.apache.catalina.Container;
 import org.apache.catalina.Context;
 import org.apache.catalina.Host;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleEvent;
 import org.apache.catalina.LifecycleException;
+import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.Loader;
 import org.apache.catalina.core.StandardContext;
+import org.apache.tomcat.util.modeler.Registry;
 import org.eclipse.gemini.web.core.spi.ContextPathExistsException;
 import org.eclipse.gemini.web.core.spi.ServletContainer;
 import org.eclipse.gemini.web.core.spi.ServletContainerException;
 import org.eclipse.gemini.web.core.spi.WebApplicationHandle;
 import org.eclipse.gemini.web.tomcat.internal.bundleresources.BundleWebResourceRoot;
+import org.eclipse.gemini.web.tomcat.internal.bundleresources.SharedResourceCache;
 import org.eclipse.gemini.web.tomcat.internal.loader.BundleWebappLoader;
 import org.eclipse.gemini.web.tomcat.internal.loader.ChainedClassLoader;
+import org.eclipse.gemini.web.tomcat.internal.loader.ClassLoaderLeakDetector;
 import org.eclipse.gemini.web.tomcat.internal.loader.StandardWebBundleClassLoaderFactory;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
+import org.eclipse.gemini.web.tomcat.internal.support.WarmUpProfile;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoadingStatisticsProvider;
 import org.eclipse.gemini.web.tomcat.spi.WebBundleClassLoaderFactory;
 import org.eclipse.virgo.util.osgi.ServiceRegistrationTracker;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 final class TomcatServletContainer implements ServletContainer {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TomcatServletContainer.class);
+
+    /**
+     * The maximum number of bundle entry lookups, found or not, cached per web application. Only the lookups which are
+     * not answered by the entry index are cached. A value less than or equal to zero disables the cache.
+     */
+    static final String LOOKUP_CACHE_MAX_SIZE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.lookupCacheMaxSize";
+
+    /**
+     * The time in milliseconds for which a cached bundle entry lookup is considered valid.
+     */
+    static final String LOOKUP_CACHE_TTL_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.lookupCacheTtl";
+
+    /**
+     * Whether an index of the bundle entries is built when a web application is started. Defaults to <code>true</code>.
+     */
+    static final String ENTRY_INDEX_ENABLED_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.entryIndexEnabled";
+
+    /**
+     * Whether GZIP variants of compressible resources are created on demand when the bundle does not contain them.
+     * Defaults to <code>false</code>. The variants are served only to web applications which enable the
+     * <code>gzip</code> init parameter of the default servlet, which is disabled in the global <code>web.xml</code>.
+     */
+    static final String LAZY_COMPRESSION_ENABLED_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.lazyCompressionEnabled";
+
+    /**
+     * Comma separated list of the MIME types of the resources which are compressed on demand.
+     */
+    static final String COMPRESSIBLE_MIME_TYPES_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.compressibleMimeTypes";
+
+    /**
+     * The memory in bytes which is allocated outside of the heap for the content of small resources shared by all web
+     * applications. Defaults to <code>0</code>, which disables the shared cache.
+     */
+    static final String SHARED_CACHE_MAX_MEMORY_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.sharedCacheMaxMemory";
+
+    /**
+     * The size in bytes of the largest resource whose content is stored in the shared cache.
+     */
+    static final String SHARED_CACHE_MAX_ENTRY_SIZE_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.resources.sharedCacheMaxEntrySize";
+
+    /**
+     * Whether the resources and the classes accessed by a web application are recorded and prefetched when the web
+     * application is started again. Defaults to <code>false</code>.
+     */
+    static final String WARM_UP_PROFILE_ENABLED_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.warmUpProfileEnabled";
+
+    /**
+     * The maximum number of resources and of classes recorded in the warm-up profile of a web application.
+     */
+    static final String WARM_UP_PROFILE_MAX_ENTRIES_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.warmUpProfileMaxEntries";
+
+    /**
+     * Whether the classes transformed by the class file transformers of a web application, e.g. for load-time weaving,
+     * are cached on disk and reused when the web application is started again. Defaults to <code>false</code>.
+     */
+    static final String WOVEN_CLASS_CACHE_ENABLED_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.wovenClassCacheEnabled";
+
+    /**
+     * Whether the thread context class loader of threads of other bundles, which inherited the class loader of a web
+     * application, is reset when the web application is stopped. Otherwise such threads are only reported. Defaults to
+     * <code>false</code>.
+     */
+    static final String CLEAR_REFERENCES_THREAD_CONTEXT_CLASS_LOADERS_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.clearReferencesThreadContextClassLoaders";
+
+    /**
+     * Whether the thread locals of all threads are checked for values of a web application when the web application is
+     * stopped. Defaults to <code>false</code>.
+     */
+    static final String CLEAR_REFERENCES_THREAD_LOCALS_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.clearReferencesThreadLocals";
+
+    /**
+     * The number of garbage collections which can unload classes after which the class loaders of a stopped web
+     * application which have not been collected are reported as leaked, e.g.
+     * {@link ClassLoaderLeakDetector#DEFAULT_GC_CYCLES}. A value less than or equal to zero disables the detection.
+     * Defaults to <code>0</code>.
+     */
+    static final String LEAK_DETECTION_GC_CYCLES_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.leakDetectionGcCycles";
+
+    /**
+     * Whether a heap dump is written when leaked class loaders are detected. Defaults to <code>false</code>.
+     */
+    static final String LEAK_DETECTION_HEAP_DUMP_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.leakDetectionHeapDump";
+
+    /**
+     * The classes of every web application which are loaded and linked in parallel before the web application is made
+     * available, unless the web application specifies them with the {@link #HEADER_PRELOAD_CLASSES} header. A comma
+     * separated list of <code>*</code>, <code>&lt;package&gt;.*</code> and class names. Defaults to none.
+     */
+    static final String PRELOAD_CLASSES_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.preloadClasses";
+
+    /**
+     * The maximum time in milliseconds to wait for the classes of a web application to be preloaded, after which the
+     * preloading is stopped. Defaults to 10 seconds.
+     */
+    static final String PRELOAD_TIMEOUT_PROPERTY_NAME = "org.eclipse.gemini.web.tomcat.preloadTimeout";
+
+    /**
+     * Manifest header of a web application bundle with the classes which are loaded and linked in parallel before the
+     * web application is made available, in the same format as {@link #PRELOAD_CLASSES_PROPERTY_NAME}.
+     */
+    static final String HEADER_PRELOAD_CLASSES = "Web-PreloadClasses";
+
+    private static final String WARM_UP_PROFILE_DIRECTORY = "warm-up";
+
+    private static final String HEAP_DUMP_DIRECTORY = "heap-dumps";
+
+    private static final String WARM_UP_PROFILE_EXTENSION = ".profile";
+
     private final TomcatMBeanManager mbeanManager;
 
     private final OsgiAwareEmbeddedTomcat tomcat;
@@ -53,6 +177,16 @@ final class TomcatServletContainer implements ServletContainer {
 
     private final BundleContext context;
 
+    private final SharedResourceCache sharedResourceCache = new SharedResourceCache();
+
+    private volatile ObjectName sharedResourceCacheObjectName;
+
+    private volatile ClassLoaderLeakDetector leakDetector;
+
+    private volatile ObjectName leakDetectorObjectName;
+
+    private final BundleListener extractedEntriesCleaner = new ExtractedEntriesCleaner();
+
     public TomcatServletContainer(OsgiAwareEmbeddedTomcat tomcat, BundleContext context) {
         this.classLoaderCustomizer = new DelegatingClassLoaderCustomizer(context);
         this.tomcat = tomcat;
@@ -69,11 +203,16 @@ final class TomcatServletContainer implements ServletContainer {
     public void start() {
         try {
             this.classLoaderCustomizer.open();
+            this.context.addBundleListener(this.extractedEntriesCleaner);
 
             WebBundleClassLoaderFactory classLoaderFactory = new StandardWebBundleClassLoaderFactory(this.classLoaderCustomizer);
             ServiceRegistration<WebBundleClassLoaderFactory> registration = this.context.registerService(WebBundleClassLoaderFactory.class,
                 classLoaderFactory, null);
             this.registrationTracker.track(registration);
+            this.registrationTracker.track(this.context.registerService(ClassLoadingStatisticsProvider.class,
+                new TomcatClassLoadingStatisticsProvider(this.tomcat.getHost()), null));
+            configureSharedResourceCache();
+            configureLeakDetector();
             doStart();
         } catch (LifecycleException e) {
             throw new ServletContainerException("Unable to start Tomcat.", e);
@@ -86,6 +225,18 @@ final class TomcatServletContainer implements ServletContainer {
             this.mbeanManager.stop();
             this.registrationTracker.unregisterAll();
             this.classLoaderCustomizer.close();
+            this.context.removeBundleListener(this.extractedEntriesCleaner);
+            BundleEntryExtractor.deleteTemporaryFiles();
+            unregisterMBean(this.sharedResourceCacheObjectName);
+            this.sharedResourceCacheObjectName = null;
+            this.sharedResourceCache.clear();
+            ClassLoaderLeakDetector detector = this.leakDetector;
+            if (detector != null) {
+                detector.stop();
+                this.leakDetector = null;
+            }
+            unregisterMBean(this.leakDetectorObjectName);
+            this.leakDetectorObjectName = null;
         } catch (LifecycleException e) {
             throw new ServletContainerException("Error stopping Tomcat", e);
         }
@@ -101,8 +252,26 @@ final class TomcatServletContainer implements ServletContainer {
             StandardContext context = (StandardContext) this.tomcat.addWebapp(contextPath, docBase, bundle);
 
             BundleWebappLoader loader = new BundleWebappLoader(bundle, this.classLoaderCustomizer);
+            loader.setWovenClassCacheEnabled(Boolean.parseBoolean(this.context.getProperty(WOVEN_CLASS_CACHE_ENABLED_PROPERTY_NAME)));
+            loader.setClearReferencesThreadContextClassLoaders(
+                Boolean.parseBoolean(this.context.getProperty(CLEAR_REFERENCES_THREAD_CONTEXT_CLASS_LOADERS_PROPERTY_NAME)));
+            loader.setClearReferencesThreadLocals(Boolean.parseBoolean(this.context.getProperty(CLEAR_REFERENCES_THREAD_LOCALS_PROPERTY_NAME)));
+            loader.setLeakDetector(this.leakDetector);
+            loader.setBundleContext(this.context);
+            String preloadClasses = bundle.getHeaders().get(HEADER_PRELOAD_CLASSES);
+            loader.setPreloadClasses(preloadClasses != null ? preloadClasses : this.context.getProperty(PRELOAD_CLASSES_PROPERTY_NAME));
+            String preloadTimeout = this.context.getProperty(PRELOAD_TIMEOUT_PROPERTY_NAME);
+            if (preloadTimeout != null) {
+                loader.setPreloadTimeout(Long.parseLong(preloadTimeout.trim()));
+            }
             context.setLoader(loader);
-            context.setResources(new BundleWebResourceRoot(bundle));
+            BundleWebResourceRoot resources = new BundleWebResourceRoot(bundle);
+            configureResources(resources);
+            resources.setSharedResourceCache(this.sharedResourceCache);
+            resources.setBundleContext(this.context);
+            context.setResources(resources);
+            configureWarmUpProfile(context, bundle, loader, resources);
+            context.addLifecycleListener(new ThrowawayClassLoaderReleaser(bundle));
 
             ServletContext servletContext = context.getServletContext();
 
@@ -132,6 +301,11 @@ final class TomcatServletContainer implements ServletContainer {
             host.removeChild(context);
             throw new ServletContainerException("Web application at [" + contextPath + "] failed to start. Check the logs for more details.");
         }
+
+        Loader loader = context.getLoader();
+        if (loader instanceof BundleWebappLoader) {
+            ((BundleWebappLoader) loader).awaitPreload();
+        }
     }
 
     @Override
@@ -148,6 +322,111 @@ final class TomcatServletContainer implements ServletContainer {
         }
     }
 
+    private void configureResources(BundleWebResourceRoot resources) {
+        String lookupCacheMaxSize = this.context.getProperty(LOOKUP_CACHE_MAX_SIZE_PROPERTY_NAME);
+        if (lookupCacheMaxSize != null) {
+            resources.setLookupCacheMaxSize(Integer.parseInt(lookupCacheMaxSize.trim()));
+        }
+
+        String lookupCacheTtl = this.context.getProperty(LOOKUP_CACHE_TTL_PROPERTY_NAME);
+        if (lookupCacheTtl != null) {
+            resources.setLookupCacheTtl(Long.parseLong(lookupCacheTtl.trim()));
+        }
+
+        String entryIndexEnabled = this.context.getProperty(ENTRY_INDEX_ENABLED_PROPERTY_NAME);
+        if (entryIndexEnabled != null) {
+            resources.setEntryIndexEnabled(Boolean.parseBoolean(entryIndexEnabled.trim()));
+        }
+
+        String lazyCompressionEnabled = this.context.getProperty(LAZY_COMPRESSION_ENABLED_PROPERTY_NAME);
+        if (lazyCompressionEnabled != null) {
+            resources.setLazyCompressionEnabled(Boolean.parseBoolean(lazyCompressionEnabled.trim()));
+        }
+
+        String compressibleMimeTypes = this.context.getProperty(COMPRESSIBLE_MIME_TYPES_PROPERTY_NAME);
+        if (compressibleMimeTypes != null) {
+            resources.setCompressibleMimeTypes(compressibleMimeTypes);
+        }
+    }
+
+    private void configureSharedResourceCache() {
+        String maxEntrySize = this.context.getProperty(SHARED_CACHE_MAX_ENTRY_SIZE_PROPERTY_NAME);
+        if (maxEntrySize != null) {
+            this.sharedResourceCache.setMaxEntrySize(Integer.parseInt(maxEntrySize.trim()));
+        }
+
+        String maxMemory = this.context.getProperty(SHARED_CACHE_MAX_MEMORY_PROPERTY_NAME);
+        if (maxMemory != null) {
+            this.sharedResourceCache.setMaxMemory(Long.parseLong(maxMemory.trim()));
+        }
+
+        try {
+            ObjectName objectName = new ObjectName(this.tomcat.getEngine().getName() + ":type=" + SharedResourceCache.class.getSimpleName());
+            Registry.getRegistry(null, null).registerComponent(this.sharedResourceCache, objectName, null);
+            this.sharedResourceCacheObjectName = objectName;
+        } catch (Exception e) {
+            LOGGER.warn("Unable to register the shared resource cache MBean.", e);
+        }
+    }
+
+    private static void unregisterMBean(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            Registry.getRegistry(null, null).unregisterComponent(objectName);
+        } catch (Exception e) {
+            LOGGER.warn("Unable to unregister MBean [" + objectName + "].", e);
+        }
+    }
+
+    private void configureLeakDetector() {
+        int gcCycles = 0;
+        String gcCyclesProperty = this.context.getProperty(LEAK_DETECTION_GC_CYCLES_PROPERTY_NAME);
+        if (gcCyclesProperty != null) {
+            gcCycles = Integer.parseInt(gcCyclesProperty.trim());
+        }
+        if (gcCycles <= 0) {
+            return;
+        }
+
+        ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(this.context.getDataFile(HEAP_DUMP_DIRECTORY));
+        detector.setGcCycles(gcCycles);
+        detector.setHeapDumpOnLeak(Boolean.parseBoolean(this.context.getProperty(LEAK_DETECTION_HEAP_DUMP_PROPERTY_NAME)));
+
+        try {
+            ObjectName objectName = new ObjectName(this.tomcat.getEngine().getName() + ":type=" + ClassLoaderLeakDetector.class.getSimpleName());
+            Registry.getRegistry(null, null).registerComponent(detector, objectName, null);
+            this.leakDetectorObjectName = objectName;
+        } catch (Exception e) {
+            LOGGER.warn("Unable to register the class loader leak detector MBean.", e);
+        }
+
+        detector.start();
+        this.leakDetector = detector;
+    }
+
+    private void configureWarmUpProfile(StandardContext context, Bundle bundle, BundleWebappLoader loader, BundleWebResourceRoot resources) {
+        if (!Boolean.parseBoolean(this.context.getProperty(WARM_UP_PROFILE_ENABLED_PROPERTY_NAME)) || !(context instanceof ExtendedStandardContext)) {
+            return;
+        }
+
+        // The profile is kept per symbolic name and version, so that it survives the reinstallation of the bundle
+        File profileFile = this.context.getDataFile(WARM_UP_PROFILE_DIRECTORY + File.separator + bundle.getSymbolicName() + "_" + bundle.getVersion()
+            + WARM_UP_PROFILE_EXTENSION);
+        if (profileFile == null) {
+            return;
+        }
+
+        String maxEntries = this.context.getProperty(WARM_UP_PROFILE_MAX_ENTRIES_PROPERTY_NAME);
+        WarmUpProfile profile = new WarmUpProfile(profileFile, maxEntries != null ? Integer.parseInt(maxEntries.trim())
+            : WarmUpProfile.DEFAULT_MAX_ENTRIES);
+
+        ((ExtendedStandardContext) context).setWarmUpProfile(profile);
+        loader.setWarmUpProfile(profile);
+        resources.setWarmUpProfile(profile);
+    }
+
     private void doStart() throws LifecycleException {
         ClassLoader current = Thread.currentThread().getContextClassLoader();
         try {
@@ -268,4 +547,38 @@ final class TomcatServletContainer implements ServletContainer {
         }
 
     }
+
+    /**
+     * Releases the throwaway class loader of a web application bundle when its web application has been stopped, so
+     * that the classes defined by it can be unloaded while the bundle remains installed.
+     */
+    private final class ThrowawayClassLoaderReleaser implements LifecycleListener {
+
+        private final Bundle bundle;
+
+        private ThrowawayClassLoaderReleaser(Bundle bundle) {
+            this.bundle = bundle;
+        }
+
+        @Override
+        public void lifecycleEvent(LifecycleEvent event) {
+            if (Lifecycle.AFTER_STOP_EVENT.equals(event.getType())) {
+                TomcatServletContainer.this.classLoaderCustomizer.releaseThrowawayClassLoader(this.bundle);
+            }
+        }
+    }
+
+    /**
+     * Deletes the local copies of the entries of uninstalled bundles, e.g. of their Bundle-ClassPath JARs, which could
+     * not be stored in the bundle data area.
+     */
+    private static final class ExtractedEntriesCleaner implements BundleListener {
+
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            if (event.getType() == BundleEvent.UNINSTALLED) {
+                BundleEntryExtractor.deleteTemporaryFiles(event.getBundle().getBundleId());
+            }
+        }
+    }
 }
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.osgi.framework.Bundle;
+
+/**
+ * Random access to the entries of a bundle which is installed as an archive. The archive is opened on first use and
+ * kept open until it is {@link #close() closed}, which has to be done when the bundle is updated. Streams which are
+ * still being read when the archive is closed remain valid, the archive file is closed once the last of them is closed.
+ * <p />
+ * Streams of entries which are stored without compression support positional {@link InputStream#skip(long) skipping},
+ * so that range requests do not have to read the content before the requested offset.
+ * <p />
+ * Signed bundles are not read directly, as the framework verifies the content of their entries against the signatures
+ * when they are read through the bundle.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class BundleArchive {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private final Bundle bundle;
+
+    private final BundleFileResolver bundleFileResolver;
+
+    private final Object monitor = new Object();
+
+    private ArchiveFile archive;
+
+    private boolean archiveResolved;
+
+    BundleArchive(Bundle bundle, BundleFileResolver bundleFileResolver) {
+        this.bundle = bundle;
+        this.bundleFileResolver = bundleFileResolver;
+    }
+
+    /**
+     * Returns the archive entry with the given path.
+     *
+     * @param path the path of the entry in the bundle
+     * @return the entry or <code>null</code> if the bundle is not an archive which can be read directly or the archive
+     *         does not contain the entry
+     */
+    ZipEntry getEntry(String path) {
+        ArchiveFile archiveFile = retainArchive();
+        if (archiveFile == null) {
+            return null;
+        }
+
+        try {
+            return archiveFile.zipFile.getEntry(getEntryPath(path));
+        } finally {
+            archiveFile.release();
+        }
+    }
+
+    /**
+     * Opens the archive entry with the given path.
+     *
+     * @param path the path of the entry in the bundle
+     * @return the content of the entry or <code>null</code> if the bundle is not an archive which can be read directly
+     *         or the archive does not contain such a file
+     * @throws IOException if the entry cannot be read
+     */
+    InputStream getInputStream(String path) throws IOException {
+        ArchiveFile archiveFile = retainArchive();
+        if (archiveFile == null) {
+            return null;
+        }
+
+        InputStream is = null;
+        try {
+            ZipEntry zipEntry = archiveFile.zipFile.getEntry(getEntryPath(path));
+            if (zipEntry != null && !zipEntry.isDirectory()) {
+                is = new ArchiveEntryInputStream(archiveFile.zipFile.getInputStream(zipEntry), archiveFile);
+            }
+            return is;
+        } finally {
+            if (is == null) {
+                archiveFile.release();
+            }
+        }
+    }
+
+    /**
+     * Closes the archive. It is opened again on next use. The archive file is closed once the streams which are still
+     * being read are closed.
+     */
+    void close() {
+        synchronized (this.monitor) {
+            if (this.archive != null) {
+                this.archive.release();
+                this.archive = null;
+            }
+            this.archiveResolved = false;
+        }
+    }
+
+    /**
+     * Returns the archive with an additional reference, which the caller has to release.
+     */
+    private ArchiveFile retainArchive() {
+        synchronized (this.monitor) {
+            if (!this.archiveResolved) {
+                this.archiveResolved = true;
+                File bundleLocation = this.bundleFileResolver.resolve(this.bundle);
+                if (bundleLocation != null && bundleLocation.isFile() && !isSigned()) {
+                    try {
+                        this.archive = new ArchiveFile(new ZipFile(bundleLocation));
+                    } catch (IOException e) {
+                        this.archive = null;
+                    }
+                }
+            }
+            if (this.archive != null) {
+                this.archive.retain();
+            }
+            return this.archive;
+        }
+    }
+
+    private boolean isSigned() {
+        Map<X509Certificate, List<X509Certificate>> signers = this.bundle.getSignerCertificates(Bundle.SIGNERS_ALL);
+        return signers != null && !signers.isEmpty();
+    }
+
+    private static String getEntryPath(String path) {
+        return path.startsWith(PATH_SEPARATOR) ? path.substring(1) : path;
+    }
+
+    /**
+     * An open archive and the number of its users: the {@link BundleArchive} until it is closed and every stream which
+     * has not been closed yet.
+     */
+    private static final class ArchiveFile {
+
+        private final ZipFile zipFile;
+
+        private int references = 1;
+
+        private ArchiveFile(ZipFile zipFile) {
+            this.zipFile = zipFile;
+        }
+
+        private synchronized void retain() {
+            this.references++;
+        }
+
+        private synchronized void release() {
+            if (--this.references == 0) {
+                try {
+                    this.zipFile.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    private static final class ArchiveEntryInputStream extends FilterInputStream {
+
+        private final ArchiveFile archiveFile;
+
+        private boolean closed;
+
+        private ArchiveEntryInputStream(InputStream in, ArchiveFile archiveFile) {
+            super(in);
+            this.archiveFile = archiveFile;
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.closed = true;
+            }
+            try {
+                super.close();
+            } finally {
+                this.archiveFile.release();
+            }
+        }
+    }
+}
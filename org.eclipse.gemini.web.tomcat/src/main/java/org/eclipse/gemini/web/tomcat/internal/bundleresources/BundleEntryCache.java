@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the bundle entries resolved for a web application. Both found entries and misses are cached so that
+ * repeated requests for the same path do not search the bundle and its fragments again. Entries expire after a time
+ * to live and the least recently used entries are evicted when the cache is full.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class BundleEntryCache {
+
+    static final int DEFAULT_MAX_SIZE = 4096;
+
+    static final long DEFAULT_TTL = 5000L;
+
+    private final Map<String, CachedEntry> entries = new LinkedHashMap<String, CachedEntry>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedEntry> eldest) {
+            return size() > BundleEntryCache.this.maxSize;
+        }
+    };
+
+    private final Object monitor = new Object();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    private volatile long ttl = DEFAULT_TTL;
+
+    /**
+     * Returns the cached lookup for the given path.
+     *
+     * @param path the bundle entry path
+     * @return the cached lookup or <code>null</code> if the path is not cached or its entry has expired
+     */
+    CachedEntry get(String path) {
+        if (this.maxSize <= 0) {
+            return null;
+        }
+
+        CachedEntry cachedEntry;
+        synchronized (this.monitor) {
+            cachedEntry = this.entries.get(path);
+            if (cachedEntry != null && cachedEntry.isExpired(System.currentTimeMillis())) {
+                this.entries.remove(path);
+                cachedEntry = null;
+            }
+        }
+
+        if (cachedEntry != null) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+        return cachedEntry;
+    }
+
+    /**
+     * Caches the result of a bundle entry lookup.
+     *
+     * @param path the bundle entry path
+     * @param url the resolved entry or <code>null</code> if the bundle does not contain such an entry
+     */
+    void put(String path, URL url) {
+        if (this.maxSize <= 0) {
+            return;
+        }
+
+        CachedEntry cachedEntry = new CachedEntry(url, System.currentTimeMillis() + this.ttl);
+        synchronized (this.monitor) {
+            this.entries.put(path, cachedEntry);
+        }
+    }
+
+    /**
+     * Removes the expired entries.
+     */
+    void gc() {
+        long now = System.currentTimeMillis();
+        synchronized (this.monitor) {
+            Iterator<CachedEntry> iterator = this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isExpired(now)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries. Used when the bundle or its fragments have been changed.
+     */
+    void clear() {
+        synchronized (this.monitor) {
+            this.entries.clear();
+        }
+    }
+
+    int getSize() {
+        synchronized (this.monitor) {
+            return this.entries.size();
+        }
+    }
+
+    int getMaxSize() {
+        return this.maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        if (maxSize <= 0) {
+            clear();
+        }
+    }
+
+    long getTtl() {
+        return this.ttl;
+    }
+
+    void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+
+    static final class CachedEntry {
+
+        private final URL url;
+
+        private final long expires;
+
+        private CachedEntry(URL url, long expires) {
+            this.url = url;
+            this.expires = expires;
+        }
+
+        /**
+         * @return the resolved entry or <code>null</code> if the lookup was a miss
+         */
+        URL getURL() {
+            return this.url;
+        }
+
+        private boolean isExpired(long now) {
+            return now > this.expires;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryMetadata;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.osgi.framework.Bundle;
+
+/**
+ * Immutable index (trie) of all entries of a bundle and its attached fragments. Entries supplied by the host take
+ * precedence over entries with the same path supplied by a fragment, which is the order in which
+ * {@link Bundle#findEntries(String, String, boolean)} returns them. Each entry records the bundle which supplies it, so
+ * that the entry can be obtained directly from that bundle.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is immutable and therefore thread safe.
+ */
+final class BundleEntryIndex {
+
+    private static final char PATH_SEPARATOR = '/';
+
+    private static final String CURRENT_DIRECTORY = ".";
+
+    private static final String PARENT_DIRECTORY = "..";
+
+    private final Node root;
+
+    private final int size;
+
+    private BundleEntryIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Builds an index over the entries of the given bundle and of the given fragments.
+     *
+     * @param bundle the host bundle
+     * @param fragments the fragments attached to the host, in the order of precedence
+     * @param bundleFileResolver used to obtain the size and the last modification time of the entries
+     * @return the index
+     */
+    static BundleEntryIndex build(Bundle bundle, List<Bundle> fragments, BundleFileResolver bundleFileResolver) {
+        NodeBuilder root = new NodeBuilder(true, bundle, null);
+        int[] size = new int[1];
+        addEntries(bundle, "", root, bundleFileResolver, size);
+        for (Bundle fragment : fragments) {
+            addEntries(fragment, "", root, bundleFileResolver, size);
+        }
+        return new BundleEntryIndex(root.build(), size[0]);
+    }
+
+    private static void addEntries(Bundle bundle, String path, NodeBuilder parent, BundleFileResolver bundleFileResolver, int[] size) {
+        Enumeration<String> entryPaths = bundle.getEntryPaths(path);
+        if (entryPaths == null) {
+            return;
+        }
+
+        while (entryPaths.hasMoreElements()) {
+            String entryPath = entryPaths.nextElement();
+            boolean directory = entryPath.charAt(entryPath.length() - 1) == PATH_SEPARATOR;
+            String name = getName(entryPath, directory);
+
+            NodeBuilder child = parent.children.get(name);
+            if (child == null) {
+                child = new NodeBuilder(directory, bundle, bundleFileResolver.resolveBundleEntryMetadata(bundle, entryPath));
+                parent.children.put(name, child);
+                size[0]++;
+            }
+
+            if (directory && child.directory) {
+                addEntries(bundle, entryPath, child, bundleFileResolver, size);
+            }
+        }
+    }
+
+    private static String getName(String entryPath, boolean directory) {
+        int end = directory ? entryPath.length() - 1 : entryPath.length();
+        int start = entryPath.lastIndexOf(PATH_SEPARATOR, end - 1) + 1;
+        return entryPath.substring(start, end);
+    }
+
+    /**
+     * Checks whether the given path is in a normalized form which can be answered by this index. Paths which contain
+     * empty segments or navigate to the parent directory have to be resolved by the framework.
+     *
+     * @param path the bundle entry path
+     * @return <code>true</code> if {@link #lookup(String)} can be used for this path
+     */
+    boolean canLookup(String path) {
+        int start = path.length() > 0 && path.charAt(0) == PATH_SEPARATOR ? 1 : 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf(PATH_SEPARATOR, start);
+            if (end == -1) {
+                end = length;
+            }
+            if (end == start || path.startsWith(PARENT_DIRECTORY, start) && end - start == PARENT_DIRECTORY.length()) {
+                return false;
+            }
+            if (path.startsWith(CURRENT_DIRECTORY, start) && end - start == CURRENT_DIRECTORY.length() && end != length) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the entry with the given path. A trailing <code>/</code> or <code>/.</code> requires the entry to be a
+     * directory.
+     *
+     * @param path the bundle entry path, which must satisfy {@link #canLookup(String)}
+     * @return the entry or <code>null</code> if neither the bundle nor its fragments contain it
+     */
+    Node lookup(String path) {
+        int length = path.length();
+        int start = length > 0 && path.charAt(0) == PATH_SEPARATOR ? 1 : 0;
+        boolean directoryRequired = false;
+
+        Node node = this.root;
+        while (start < length) {
+            int end = path.indexOf(PATH_SEPARATOR, start);
+            if (end == -1) {
+                end = length;
+            } else if (end == length - 1) {
+                directoryRequired = true;
+            }
+
+            if (end - start == CURRENT_DIRECTORY.length() && path.startsWith(CURRENT_DIRECTORY, start)) {
+                directoryRequired = true;
+            } else {
+                node = node.getChild(path, start, end);
+                if (node == null) {
+                    return null;
+                }
+            }
+            start = end + 1;
+        }
+
+        if (directoryRequired && !node.isDirectory()) {
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * @return the number of entries in the index
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * An entry of the index.
+     */
+    static final class Node {
+
+        private static final String[] NO_NAMES = new String[0];
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final boolean directory;
+
+        private final Bundle bundle;
+
+        private final BundleEntryMetadata metadata;
+
+        private final String[] childNames;
+
+        private final Node[] children;
+
+        private Node(boolean directory, Bundle bundle, BundleEntryMetadata metadata, String[] childNames, Node[] children) {
+            this.directory = directory;
+            this.bundle = bundle;
+            this.metadata = metadata;
+            this.childNames = childNames;
+            this.children = children;
+        }
+
+        boolean isDirectory() {
+            return this.directory;
+        }
+
+        /**
+         * @return the host or the fragment which supplies the entry
+         */
+        Bundle getBundle() {
+            return this.bundle;
+        }
+
+        /**
+         * @return the size and the last modification time of the entry or <code>null</code> if they are not known
+         */
+        BundleEntryMetadata getMetadata() {
+            return this.metadata;
+        }
+
+        /**
+         * @return the size of the entry or {@link BundleEntryMetadata#UNKNOWN}
+         */
+        long getSize() {
+            return this.metadata != null ? this.metadata.getSize() : BundleEntryMetadata.UNKNOWN;
+        }
+
+        /**
+         * @return the last modification time of the entry or {@link BundleEntryMetadata#UNKNOWN}
+         */
+        long getLastModified() {
+            return this.metadata != null ? this.metadata.getLastModified() : BundleEntryMetadata.UNKNOWN;
+        }
+
+        int getChildCount() {
+            return this.children.length;
+        }
+
+        String getChildName(int index) {
+            return this.childNames[index];
+        }
+
+        Node getChild(int index) {
+            return this.children[index];
+        }
+
+        Node getChild(String name) {
+            return getChild(name, 0, name.length());
+        }
+
+        /**
+         * Finds the child whose name is the region <code>[start, end)</code> of the given path, without creating a
+         * substring for it.
+         */
+        Node getChild(String path, int start, int end) {
+            int low = 0;
+            int high = this.childNames.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int result = compare(this.childNames[middle], path, start, end);
+                if (result < 0) {
+                    low = middle + 1;
+                } else if (result > 0) {
+                    high = middle - 1;
+                } else {
+                    return this.children[middle];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Compares in the same way as {@link String#compareTo(String)}, which is the order of the child names.
+         */
+        private static int compare(String name, String path, int start, int end) {
+            int length = end - start;
+            int commonLength = Math.min(name.length(), length);
+            for (int i = 0; i < commonLength; i++) {
+                char c1 = name.charAt(i);
+                char c2 = path.charAt(start + i);
+                if (c1 != c2) {
+                    return c1 - c2;
+                }
+            }
+            return name.length() - length;
+        }
+    }
+
+    private static final class NodeBuilder {
+
+        private final boolean directory;
+
+        private final Bundle bundle;
+
+        private final BundleEntryMetadata metadata;
+
+        private final Map<String, NodeBuilder> children = new TreeMap<>();
+
+        private NodeBuilder(boolean directory, Bundle bundle, BundleEntryMetadata metadata) {
+            this.directory = directory;
+            this.bundle = bundle;
+            this.metadata = metadata;
+        }
+
+        private Node build() {
+            String[] childNames = Node.NO_NAMES;
+            Node[] children = Node.NO_CHILDREN;
+            if (!this.children.isEmpty()) {
+                childNames = new String[this.children.size()];
+                children = new Node[this.children.size()];
+                int i = 0;
+                for (Map.Entry<String, NodeBuilder> child : this.children.entrySet()) {
+                    childNames[i] = child.getKey();
+                    children[i] = child.getValue().build();
+                    i++;
+                }
+            }
+
+            return new Node(this.directory, this.bundle, this.metadata, childNames, children);
+        }
+    }
+}
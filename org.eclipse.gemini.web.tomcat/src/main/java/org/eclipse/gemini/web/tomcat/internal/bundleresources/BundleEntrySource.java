@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.catalina.WebResourceRoot;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+/**
+ * The state which is common to all {@link BundleWebResource}s of a web application: the bundle and its fragments, the
+ * location of the bundle and the caches. It is determined once when the root resource is created and shared by
+ * all resources obtained from it, so that creating a resource only has to record its path.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class BundleEntrySource {
+
+    private static final String META_INF = "META-INF";
+
+    private static final String META_INF_DOT = "META-INF.";
+
+    private final Bundle bundle;
+
+    private final WebResourceRoot root;
+
+    private volatile List<Bundle> fragments;
+
+    private final BundleFileResolver bundleFileResolver;
+
+    private final boolean checkEntryPath;
+
+    private final BundleArchive archive;
+
+    private final ETagCache eTagCache;
+
+    private final BundleEntryCache entryCache;
+
+    private final String bundleLocationCanonicalPath;
+
+    private final boolean bundleLocationDirectory;
+
+    BundleEntrySource(Bundle bundle, WebResourceRoot root) {
+        this(bundle, root, BundleFileResolverFactory.createBundleFileResolver());
+    }
+
+    BundleEntrySource(Bundle bundle, WebResourceRoot root, BundleFileResolver bundleFileResolver) {
+        this.bundle = bundle;
+        this.root = root;
+        this.fragments = Collections.unmodifiableList(getFragments(bundle));
+        this.bundleFileResolver = bundleFileResolver;
+        this.checkEntryPath = checkEntryPath();
+        this.archive = new BundleArchive(bundle, this.bundleFileResolver);
+        this.eTagCache = new ETagCache(this.archive);
+        this.entryCache = new BundleEntryCache();
+
+        String canonicalPath = null;
+        boolean directory = false;
+        File bundleLocation = this.bundleFileResolver.resolve(bundle);
+        if (bundleLocation != null) {
+            try {
+                canonicalPath = bundleLocation.getCanonicalPath();
+            } catch (IOException e) {
+            }
+            directory = bundleLocation.isDirectory();
+        }
+        this.bundleLocationCanonicalPath = canonicalPath;
+        this.bundleLocationDirectory = directory;
+    }
+
+    Bundle getBundle() {
+        return this.bundle;
+    }
+
+    WebResourceRoot getRoot() {
+        return this.root;
+    }
+
+    List<Bundle> getFragments() {
+        return this.fragments;
+    }
+
+    /**
+     * Determines again the fragments attached to the bundle. Used when the bundle has been re-resolved.
+     */
+    void refreshFragments() {
+        this.fragments = Collections.unmodifiableList(getFragments(this.bundle));
+    }
+
+    BundleFileResolver getBundleFileResolver() {
+        return this.bundleFileResolver;
+    }
+
+    /**
+     * @return <code>true</code> if the file system treats <code>META-INF.</code> as <code>META-INF</code>, in which case
+     *         paths have to be checked for attempts to access the protected directories in this way
+     */
+    boolean isCheckEntryPath() {
+        return this.checkEntryPath;
+    }
+
+    BundleArchive getArchive() {
+        return this.archive;
+    }
+
+    ETagCache getETagCache() {
+        return this.eTagCache;
+    }
+
+    BundleEntryCache getEntryCache() {
+        return this.entryCache;
+    }
+
+    String getBundleLocationCanonicalPath() {
+        return this.bundleLocationCanonicalPath;
+    }
+
+    boolean isBundleLocationDirectory() {
+        return this.bundleLocationDirectory;
+    }
+
+    /**
+     * The index is not used when the bundle has been installed from a directory, as the files in the directory can be
+     * changed without the bundle being updated.
+     *
+     * @return the index built by the {@link BundleWebResourceRoot} or <code>null</code> if there is none
+     */
+    BundleEntryIndex getEntryIndex() {
+        if (this.bundleLocationDirectory) {
+            return null;
+        }
+        if (this.root instanceof BundleWebResourceRoot) {
+            return ((BundleWebResourceRoot) this.root).getEntryIndex();
+        }
+        return null;
+    }
+
+    /**
+     * @return the cache shared by all web applications or <code>null</code> if there is none
+     */
+    SharedResourceCache getSharedResourceCache() {
+        if (this.root instanceof BundleWebResourceRoot) {
+            return ((BundleWebResourceRoot) this.root).getSharedResourceCache();
+        }
+        return null;
+    }
+
+    private static List<Bundle> getFragments(Bundle bundle) {
+        List<Bundle> fragments = new ArrayList<>();
+        BundleRevision bundleRevision = bundle.adapt(BundleRevision.class);
+        if (bundleRevision != null) {
+            BundleWiring bundleWiring = bundleRevision.getWiring();
+            if (bundleWiring != null) {
+                List<BundleWire> bundleWires = bundleWiring.getProvidedWires(BundleRevision.HOST_NAMESPACE);
+                for (int i = 0; bundleWires != null && i < bundleWires.size(); i++) {
+                    fragments.add(bundleWires.get(i).getRequirerWiring().getRevision().getBundle());
+                }
+            }
+        }
+        return fragments;
+    }
+
+    private static boolean checkEntryPath() {
+        try {
+            return Paths.get(META_INF).toRealPath().equals(Paths.get(META_INF_DOT).toRealPath());
+        } catch (IOException e) {
+            return true;
+        }
+    }
+}
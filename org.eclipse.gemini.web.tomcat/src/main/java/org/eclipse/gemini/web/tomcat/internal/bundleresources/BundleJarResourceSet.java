@@ -16,51 +16,107 @@
 
 package org.eclipse.gemini.web.tomcat.internal.bundleresources;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.util.Enumeration;
 import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
-import java.util.jar.Manifest;
+import java.util.jar.JarFile;
 
 import org.apache.catalina.LifecycleException;
-import org.apache.catalina.WebResource;
 import org.apache.catalina.WebResourceRoot;
 import org.apache.catalina.webresources.JarResourceSet;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.osgi.framework.Bundle;
 
+/**
+ * Resource set for a JAR nested in a bundle, e.g. a library in <code>WEB-INF/lib</code>. The content of the resources
+ * is read with random access from a local copy of the nested JAR provided by {@link BundleEntryExtractor}, so that
+ * opening a resource does not require the JAR to be streamed up to the requested entry.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
 final class BundleJarResourceSet extends JarResourceSet {
 
-    BundleJarResourceSet(WebResourceRoot root, String webAppMount, String base, String internalPath) throws IllegalArgumentException {
-        super(root, webAppMount, base, internalPath);
-    }
+    private final Bundle bundle;
 
-    @Override
-    protected WebResource createArchiveResource(JarEntry jarEntry, String webAppPath, Manifest manifest) {
-        return new BundleJarResource(this, webAppPath, getBaseUrlString(), jarEntry);
+    private final String archivePath;
+
+    private final Object archiveLock = new Object();
+
+    private JarFile archive;
+
+    private long archiveUseCount;
+
+    BundleJarResourceSet(WebResourceRoot root, Bundle bundle, String webAppMount, String base, String archivePath, String internalPath)
+        throws IllegalArgumentException {
+        super(root, webAppMount, base, internalPath);
+        this.bundle = bundle;
+        this.archivePath = archivePath;
     }
 
+    /**
+     * Reads the entries and the manifest from the central directory of the JAR, without inflating its content.
+     */
     @Override
     protected void initInternal() throws LifecycleException {
-        URLConnection conn = null;
-        URL baseUrl = null;
         try {
-            baseUrl = new URL(getBase());
-            conn = baseUrl.openConnection();
-        } catch (IOException e) {
+            setBaseUrl(new URL(getBase()));
+        } catch (MalformedURLException e) {
             throw new IllegalArgumentException(e);
         }
 
-        try (JarInputStream jarIs = new JarInputStream(conn.getInputStream())) {
-            JarEntry entry = jarIs.getNextJarEntry();
-            while (entry != null) {
-                getJarFileEntries().put(entry.getName(), entry);
-                entry = jarIs.getNextJarEntry();
+        try {
+            JarFile jarFile = openJarFile();
+            try {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    getJarFileEntries().put(entry.getName(), entry);
+                }
+                setManifest(jarFile.getManifest());
+            } finally {
+                closeJarFile();
             }
-            setManifest(jarIs.getManifest());
         } catch (IOException ioe) {
             throw new IllegalArgumentException(ioe);
         }
+    }
+
+    @Override
+    protected JarFile openJarFile() throws IOException {
+        synchronized (this.archiveLock) {
+            if (this.archive == null) {
+                File localFile = BundleEntryExtractor.getLocalFile(this.bundle, this.archivePath, getBaseUrl());
+                this.archive = new JarFile(localFile);
+            }
+            this.archiveUseCount++;
+            return this.archive;
+        }
+    }
+
+    @Override
+    protected void closeJarFile() {
+        synchronized (this.archiveLock) {
+            this.archiveUseCount--;
+        }
+    }
 
-        setBaseUrl(baseUrl);
+    @Override
+    public void gc() {
+        synchronized (this.archiveLock) {
+            if (this.archive != null && this.archiveUseCount == 0) {
+                try {
+                    this.archive.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+                this.archive = null;
+            }
+        }
     }
 }
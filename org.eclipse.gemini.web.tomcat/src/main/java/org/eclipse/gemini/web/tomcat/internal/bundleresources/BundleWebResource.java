@@ -16,42 +16,41 @@
 
 package org.eclipse.gemini.web.tomcat.internal.bundleresources;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.jar.Manifest;
 
+import org.apache.catalina.WebResource;
 import org.apache.catalina.WebResourceRoot;
-import org.apache.catalina.webresources.AbstractResource;
-import org.apache.juli.logging.Log;
+import org.apache.tomcat.util.http.FastHttpDateFormat;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryMetadata;
 import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
-import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
 import org.osgi.framework.Bundle;
-import org.osgi.framework.wiring.BundleRevision;
-import org.osgi.framework.wiring.BundleWire;
-import org.osgi.framework.wiring.BundleWiring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-final class BundleWebResource extends AbstractResource {
+final class BundleWebResource implements WebResource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundleWebResource.class);
 
     private static final String WEB_INF_DOT = "WEB-INF.";
 
     private static final String META_INF_DOT = "META-INF.";
 
-    private static final String META_INF = "META-INF";
-
     private static final String OSGI_INF_DOT = "OSGI-INF.";
 
     private static final String OSGI_OPT_DOT = "OSGI-OPT.";
@@ -60,84 +59,97 @@ final class BundleWebResource extends AbstractResource {
 
     private static final String DOT = ".";
 
-    private final WebResourceRoot root;
+    private static final String CURRENT_DIRECTORY = "./";
 
-    private final String path;
+    private final BundleEntrySource source;
 
-    private final Bundle bundle;
+    private final String path;
 
-    private final List<Bundle> fragments;
+    private final BundleEntryIndex.Node indexedEntry;
 
-    private final BundleFileResolver bundleFileResolver = BundleFileResolverFactory.createBundleFileResolver();
+    private String mimeType;
 
-    private final boolean checkEntryPath;
+    private volatile String weakETag;
 
-    private String bundleLocationCanonicalPath;
+    private URL url;
 
-    private boolean isBundleLocationDirectory;
+    private File file;
 
-    private URL url;
+    private boolean fileResolved;
 
     private BundleWebResourceAttributes attributes;
 
     BundleWebResource(Bundle bundle, WebResourceRoot root) {
-        super(root, "");
-        this.root = root;
-        this.path = "";
-        this.bundle = bundle;
-        this.fragments = getFragments(bundle);
-        this.checkEntryPath = checkEntryPath();
-        File bundleLocation = this.bundleFileResolver.resolve(bundle);
-        if (bundleLocation != null) {
-            try {
-                this.bundleLocationCanonicalPath = bundleLocation.getCanonicalPath();
-            } catch (IOException e) {
-            }
-            if (bundleLocation.isDirectory()) {
-                this.isBundleLocationDirectory = true;
-            }
-        }
+        this(new BundleEntrySource(bundle, root), "", null);
+    }
+
+    BundleWebResource(Bundle bundle, WebResourceRoot root, BundleFileResolver bundleFileResolver) {
+        this(new BundleEntrySource(bundle, root, bundleFileResolver), "", null);
     }
 
-    private BundleWebResource(Bundle bundle, WebResourceRoot root, List<Bundle> fragments, String path, boolean checkEntryPath,
-        String bundleLocationCanonicalPath, boolean isBundleLocationDirectory) {
-        super(root, path);
-        this.root = root;
+    private BundleWebResource(BundleEntrySource source, String path, BundleEntryIndex.Node indexedEntry) {
+        this.source = source;
         this.path = path;
-        this.bundle = bundle;
-        this.fragments = fragments;
-        this.checkEntryPath = checkEntryPath;
-        this.bundleLocationCanonicalPath = bundleLocationCanonicalPath;
-        this.isBundleLocationDirectory = isBundleLocationDirectory;
+        this.indexedEntry = indexedEntry;
     }
 
     private Bundle getBundle() {
-        return this.bundle;
+        return this.source.getBundle();
     }
 
     List<BundleWebResource> list() {
         List<BundleWebResource> entries = new ArrayList<>();
+        BundleEntryIndex.Node node = getIndexedEntry();
+        if (node != null) {
+            String prefix = this.path.length() == 0 || this.path.endsWith(PATH_SEPARATOR) ? this.path : this.path + PATH_SEPARATOR;
+            for (int i = 0; i < node.getChildCount(); i++) {
+                BundleEntryIndex.Node child = node.getChild(i);
+                String subPath = prefix + node.getChildName(i);
+                if (child.isDirectory()) {
+                    subPath += PATH_SEPARATOR;
+                }
+                entries.add(createBundleEntry(subPath, child));
+            }
+            return entries;
+        }
+
         Set<String> paths = getEntryPathsFromBundle();
         if (paths != null) {
             Iterator<String> iterator = paths.iterator();
             while (iterator.hasNext()) {
                 String subPath = iterator.next();
-                entries.add(createBundleEntry(subPath));
+                entries.add(createBundleEntry(subPath, null));
             }
         }
         return entries;
     }
 
-    private BundleWebResource createBundleEntry(String path) {
-        return new BundleWebResource(this.bundle, this.root, this.fragments, path, this.checkEntryPath, this.bundleLocationCanonicalPath,
-            this.isBundleLocationDirectory);
+    private BundleWebResource createBundleEntry(String path, BundleEntryIndex.Node indexedEntry) {
+        return new BundleWebResource(this.source, path, indexedEntry);
+    }
+
+    /**
+     * Returns the entry of the index built by the {@link BundleWebResourceRoot} for this resource.
+     *
+     * @return the indexed entry or <code>null</code> if there is no index or the path cannot be answered by it
+     */
+    BundleEntryIndex.Node getIndexedEntry() {
+        if (this.indexedEntry != null) {
+            return this.indexedEntry;
+        }
+        BundleEntryIndex entryIndex = this.source.getEntryIndex();
+        if (entryIndex != null && entryIndex.canLookup(this.path)) {
+            return entryIndex.lookup(this.path);
+        }
+        return null;
     }
 
     private Set<String> getEntryPathsFromBundle() {
-        Set<String> paths = getEntryPathsFromBundle(this.bundle);
+        Set<String> paths = getEntryPathsFromBundle(getBundle());
 
-        for (int i = 0; i < this.fragments.size(); i++) {
-            paths.addAll(getEntryPathsFromBundle(this.fragments.get(i)));
+        List<Bundle> fragments = this.source.getFragments();
+        for (int i = 0; i < fragments.size(); i++) {
+            paths.addAll(getEntryPathsFromBundle(fragments.get(i)));
         }
 
         if (paths.isEmpty()) {
@@ -160,29 +172,51 @@ final class BundleWebResource extends AbstractResource {
         return paths;
     }
 
-    Entry<BundleWebResource, URL> getEntry(String subPath) {
-        String finalPath = this.path + subPath;
+    BundleWebResource getEntry(String subPath) {
+        String finalPath = this.path.isEmpty() ? subPath : this.path + subPath;
+
+        BundleEntryIndex entryIndex = this.source.getEntryIndex();
+        if (entryIndex != null && entryIndex.canLookup(finalPath)) {
+            if (isProtectedPath(finalPath)) {
+                return null;
+            }
+            BundleEntryIndex.Node node = entryIndex.lookup(finalPath);
+            return node != null ? createBundleEntry(finalPath, node) : null;
+        }
+
         URL entryURL = getEntryFromBundle(finalPath);
         if (entryURL != null) {
-            Map<BundleWebResource, URL> result = new HashMap<>();
-            result.put(createBundleEntry(finalPath), entryURL);
-            return result.entrySet().iterator().next();
+            BundleWebResource entry = createBundleEntry(finalPath, null);
+            entry.url = entryURL;
+            return entry;
         }
         return null;
     }
 
     /**
      * This method has been generalized from this.bundle.getEntry(path) to allow entries to be supplied by a fragment.
+     * The result of the lookup, including a miss, is kept in the entry cache shared by all resources of the bundle.
      */
     private URL getEntryFromBundle(String path) {
-        if (this.checkEntryPath
-            && (checkNotAttemptingToAccess(path, META_INF_DOT) || checkNotAttemptingToAccess(path, WEB_INF_DOT)
-                || checkNotAttemptingToAccess(path, OSGI_INF_DOT) || checkNotAttemptingToAccess(path, OSGI_OPT_DOT))) {
+        if (isProtectedPath(path)) {
             return null;
         }
 
+        BundleEntryCache entryCache = this.source.getEntryCache();
+        BundleEntryCache.CachedEntry cachedEntry = entryCache.get(path);
+        if (cachedEntry != null) {
+            return cachedEntry.getURL();
+        }
+
+        URL entryURL = findEntryInBundle(path);
+        entryCache.put(path, entryURL);
+        return entryURL;
+    }
+
+    private URL findEntryInBundle(String path) {
+        Bundle bundle = getBundle();
         if (path.endsWith(PATH_SEPARATOR) || path.length() == 0) {
-            return this.bundle.getEntry(path);
+            return bundle.getEntry(path);
         }
 
         String searchPath;
@@ -197,10 +231,10 @@ final class BundleWebResource extends AbstractResource {
         }
 
         if (searchFile.equals(DOT)) {
-            return this.bundle.getEntry(path.substring(0, path.length() - 1));
+            return bundle.getEntry(path.substring(0, path.length() - 1));
         }
 
-        Enumeration<URL> entries = this.bundle.findEntries(searchPath, searchFile, false);
+        Enumeration<URL> entries = bundle.findEntries(searchPath, searchFile, false);
 
         if (entries != null) {
             if (entries.hasMoreElements()) {
@@ -211,9 +245,24 @@ final class BundleWebResource extends AbstractResource {
         return null;
     }
 
-    private boolean checkNotAttemptingToAccess(String path, String prefix) {
-        return path.startsWith(prefix + PATH_SEPARATOR) || path.startsWith(PATH_SEPARATOR + prefix + PATH_SEPARATOR)
-            || path.startsWith(DOT + PATH_SEPARATOR + prefix + PATH_SEPARATOR);
+    private boolean isProtectedPath(String path) {
+        if (!this.source.isCheckEntryPath()) {
+            return false;
+        }
+
+        // The prefix may be preceded by "/" or "./"
+        int offset = 0;
+        if (path.startsWith(PATH_SEPARATOR)) {
+            offset = PATH_SEPARATOR.length();
+        } else if (path.startsWith(CURRENT_DIRECTORY)) {
+            offset = CURRENT_DIRECTORY.length();
+        }
+        return checkNotAttemptingToAccess(path, offset, META_INF_DOT) || checkNotAttemptingToAccess(path, offset, WEB_INF_DOT)
+            || checkNotAttemptingToAccess(path, offset, OSGI_INF_DOT) || checkNotAttemptingToAccess(path, offset, OSGI_OPT_DOT);
+    }
+
+    private static boolean checkNotAttemptingToAccess(String path, int offset, String prefix) {
+        return path.startsWith(prefix, offset) && path.startsWith(PATH_SEPARATOR, offset + prefix.length());
     }
 
     @Override
@@ -238,35 +287,20 @@ final class BundleWebResource extends AbstractResource {
     @Override
     public URL getURL() {
         if (this.url == null) {
-            this.url = getEntryFromBundle(this.path);
+            BundleEntryIndex.Node node = getIndexedEntry();
+            if (node != null && !this.path.endsWith(DOT)) {
+                // The index knows which bundle supplies the entry, there is no need to search the fragments
+                this.url = node.getBundle().getEntry(this.path);
+            } else {
+                this.url = getEntryFromBundle(this.path);
+            }
         }
         return this.url;
     }
 
     @Override
     public String toString() {
-        return String.format("BundleWebResource [bundle=%s,path=%s]", this.bundle, this.path);
-    }
-
-    private List<Bundle> getFragments(Bundle bundle) {
-        List<Bundle> fragments = new ArrayList<>();
-        BundleRevision bundleRevision = bundle.adapt(BundleRevision.class);
-        if (bundleRevision != null) {
-            BundleWiring bundleWiring = bundleRevision.getWiring();
-            List<BundleWire> bundleWires = bundleWiring.getProvidedWires(BundleRevision.HOST_NAMESPACE);
-            for (int i = 0; bundleWires != null && i < bundleWires.size(); i++) {
-                fragments.add(bundleWires.get(i).getRequirerWiring().getRevision().getBundle());
-            }
-        }
-        return fragments;
-    }
-
-    private boolean checkEntryPath() {
-        try {
-            return Paths.get(META_INF).toRealPath().equals(Paths.get(META_INF_DOT).toRealPath());
-        } catch (IOException e) {
-            return true;
-        }
+        return String.format("BundleWebResource [bundle=%s,path=%s]", getBundle(), this.path);
     }
 
     @Override
@@ -286,6 +320,26 @@ final class BundleWebResource extends AbstractResource {
 
     @Override
     public String getCanonicalPath() {
+        File file = getFile();
+        return file != null ? file.getPath() : null;
+    }
+
+    /**
+     * Returns the file of this resource when the bundle is installed as a directory. Tomcat uses the canonical path of
+     * such resources to serve them with sendfile, therefore no file is returned for entries supplied by a fragment,
+     * which are not located in the bundle location.
+     *
+     * @return the file or <code>null</code> if the resource is not available as a file in the bundle location
+     */
+    private File getFile() {
+        if (!this.fileResolved) {
+            this.file = resolveFile();
+            this.fileResolved = true;
+        }
+        return this.file;
+    }
+
+    private File resolveFile() {
         if (isBundleLocationDirectory()) {
             boolean checkInBundleLocation = this.path != null && this.path.indexOf("..") >= 0;
             String bundleLocationCanonicalPath = getBundleLocationCanonicalPath();
@@ -299,17 +353,19 @@ final class BundleWebResource extends AbstractResource {
                     return null;
                 }
             }
-            return entry.toAbsolutePath().toString();
+            if (Files.exists(entry)) {
+                return entry.toAbsolutePath().toFile();
+            }
         }
         return null;
     }
 
     private String getBundleLocationCanonicalPath() {
-        return this.bundleLocationCanonicalPath;
+        return this.source.getBundleLocationCanonicalPath();
     }
 
     private boolean isBundleLocationDirectory() {
-        return this.isBundleLocationDirectory;
+        return this.source.isBundleLocationDirectory();
     }
 
     @Override
@@ -331,12 +387,30 @@ final class BundleWebResource extends AbstractResource {
             throw new ArrayIndexOutOfBoundsException("Unable to return [" + getWebappPath() + "] as a byte array since the resource is ["
                 + Long.valueOf(len) + "] bytes in size which is larger than the maximum size of a byte array.");
         }
+        if (len < 0) {
+            // The size is unknown because the resource cannot be read
+            return null;
+        }
+
+        SharedResourceCache sharedCache = getSharedResourceCache(len);
+        if (sharedCache != null) {
+            byte[] content = sharedCache.get(getBundle().getBundleId(), getBundle().getLastModified(), this.path);
+            if (content != null) {
+                return content;
+            }
+        }
 
-        int size = (int) len;
+        return readContent((int) len, sharedCache);
+    }
+
+    /**
+     * Reads the content of the resource and stores it in the given shared cache.
+     */
+    private byte[] readContent(int size, SharedResourceCache sharedCache) {
         byte[] result = new byte[size];
 
         int pos = 0;
-        try (InputStream is = getURL().openStream()) {
+        try (InputStream is = openStream()) {
             while (pos < size) {
                 int n = is.read(result, pos, size - pos);
                 if (n < 0) {
@@ -344,25 +418,32 @@ final class BundleWebResource extends AbstractResource {
                 }
                 pos += n;
             }
-        } catch (IOException ioe) {
+        } catch (IOException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Unable to read the content of resource [" + getWebappPath() + "].", e);
+            }
+            return null;
         }
 
+        if (sharedCache != null && pos == size) {
+            sharedCache.put(getBundle().getBundleId(), getBundle().getLastModified(), this.path, result);
+        }
         return result;
     }
 
     @Override
     public long getContentLength() {
-        return getAttributes().getContentLength(null);
+        return getAttributes().getContentLength();
     }
 
     @Override
     public long getCreation() {
-        return getAttributes().getCreation(null);
+        return getAttributes().getCreation();
     }
 
     @Override
     public long getLastModified() {
-        return getAttributes().getLastModified(null);
+        return getAttributes().getLastModified();
     }
 
     @Override
@@ -372,11 +453,19 @@ final class BundleWebResource extends AbstractResource {
 
     @Override
     public boolean isDirectory() {
+        BundleEntryIndex.Node node = getIndexedEntry();
+        if (node != null) {
+            return node.isDirectory();
+        }
         return getURL().getFile().endsWith(PATH_SEPARATOR);
     }
 
     @Override
     public boolean isFile() {
+        BundleEntryIndex.Node node = getIndexedEntry();
+        if (node != null) {
+            return !node.isDirectory();
+        }
         return !getURL().getFile().endsWith(PATH_SEPARATOR);
     }
 
@@ -385,27 +474,155 @@ final class BundleWebResource extends AbstractResource {
         return false;
     }
 
+    /**
+     * Content which is held in the shared cache is streamed from the cache without copying all of it to the heap. Tomcat
+     * does not cache the content of such resources itself, see {@link BundleWebResourceRoot}.
+     */
     @Override
-    protected InputStream doGetInputStream() {
+    public InputStream getInputStream() {
+        long len = getContentLength();
+        SharedResourceCache sharedCache = getSharedResourceCache(len);
+        if (sharedCache != null) {
+            if (sharedCache.contains(getBundle().getBundleId(), getBundle().getLastModified(), this.path)) {
+                return new SharedContentInputStream(sharedCache, getBundle().getLastModified());
+            }
+            byte[] content = readContent((int) len, sharedCache);
+            return content != null ? new ByteArrayInputStream(content) : null;
+        }
         try {
-            return getURL().openStream();
+            return openStream();
         } catch (IOException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Unable to open the content of resource [" + getWebappPath() + "].", e);
+            }
             return null;
         }
     }
 
+    /**
+     * Opens the content of the resource. Where possible the returned stream skips by seeking rather than by reading:
+     * files of bundles installed as directories are read from the file system and entries of bundles installed as
+     * archives are read from the archive directly.
+     */
+    private InputStream openStream() throws IOException {
+        File file = getFile();
+        if (file != null && file.isFile()) {
+            return new FileInputStream(file);
+        }
+        if (!this.source.isBundleLocationDirectory()) {
+            InputStream is = this.source.getArchive().getInputStream(this.path);
+            if (is != null) {
+                return is;
+            }
+        }
+        URL url = getURL();
+        if (url == null) {
+            throw new IOException("The bundle does not contain resource [" + getWebappPath() + "].");
+        }
+        return url.openStream();
+    }
+
     @Override
-    protected Log getLog() {
-        return null;
+    public WebResourceRoot getWebResourceRoot() {
+        return this.source.getRoot();
+    }
+
+    @Override
+    public String getWebappPath() {
+        return this.path;
+    }
+
+    @Override
+    public String getLastModifiedHttp() {
+        return FastHttpDateFormat.formatDate(getLastModified(), null);
+    }
+
+    /**
+     * Returns a strong entity tag derived from the content of the resource, which is cached until the bundle changes.
+     * Directories and resources whose content cannot be read get a weak entity tag based on their size and last
+     * modification time.
+     */
+    @Override
+    public String getETag() {
+        if (isFile()) {
+            String eTag = this.source.getETagCache().getETag(this.path, this);
+            if (eTag != null) {
+                return eTag;
+            }
+        }
+        return getWeakETag();
     }
 
-    Entry<BundleWebResource, URL> getNamedEntry(String name) {
+    private String getWeakETag() {
+        if (this.weakETag == null) {
+            long contentLength = getContentLength();
+            long lastModified = getLastModified();
+            if (contentLength >= 0 || lastModified >= 0) {
+                this.weakETag = "W/\"" + contentLength + "-" + lastModified + "\"";
+            }
+        }
+        return this.weakETag;
+    }
+
+    @Override
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    @Override
+    public String getMimeType() {
+        return this.mimeType;
+    }
+
+    BundleWebResource getNamedEntry(String name) {
         checkCanLookup(name);
         return getEntry(name);
     }
 
-    long resolveBundleWebResourceSize() {
-        return this.bundleFileResolver.resolveBundleEntrySize(this.bundle, this.path);
+    /**
+     * @return the shared cache if content of the given size of this resource can be cached in it, <code>null</code>
+     *         otherwise
+     */
+    private SharedResourceCache getSharedResourceCache(long contentLength) {
+        SharedResourceCache sharedCache = this.source.getSharedResourceCache();
+        if (sharedCache != null && sharedCache.isCacheable(contentLength) && isFile()) {
+            return sharedCache;
+        }
+        return null;
+    }
+
+    BundleEntrySource getEntrySource() {
+        return this.source;
+    }
+
+    BundleEntryCache getEntryCache() {
+        return this.source.getEntryCache();
+    }
+
+    ETagCache getETagCache() {
+        return this.source.getETagCache();
+    }
+
+    /**
+     * Returns the size and the last modification time of this resource. They are taken from the index when it is
+     * available, otherwise they are resolved with a single lookup in the bundle or in the fragment that supplies the
+     * entry.
+     *
+     * @return the metadata or <code>null</code> if it cannot be determined
+     */
+    BundleEntryMetadata getEntryMetadata() {
+        BundleEntryIndex.Node node = getIndexedEntry();
+        if (node != null) {
+            return node.getMetadata();
+        }
+
+        BundleFileResolver bundleFileResolver = this.source.getBundleFileResolver();
+        List<Bundle> fragments = this.source.getFragments();
+        BundleEntryMetadata metadata = bundleFileResolver.resolveBundleEntryMetadata(getBundle(), this.path);
+        for (int i = 0; metadata == null && i < fragments.size(); i++) {
+            metadata = bundleFileResolver.resolveBundleEntryMetadata(fragments.get(i), this.path);
+        }
+        return metadata;
     }
 
     private void checkCanLookup(String name) {
@@ -432,4 +649,86 @@ final class BundleWebResource extends AbstractResource {
         }
         return this.attributes;
     }
+
+    /**
+     * Streams the content of the resource from the shared cache. When the content is evicted while it is read, the rest
+     * of it is read from the resource itself.
+     */
+    private final class SharedContentInputStream extends InputStream {
+
+        private final SharedResourceCache sharedCache;
+
+        private final long revision;
+
+        private int position;
+
+        private InputStream fallback;
+
+        private SharedContentInputStream(SharedResourceCache sharedCache, long revision) {
+            this.sharedCache = sharedCache;
+            this.revision = revision;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int n = read(b, 0, 1);
+            return n == 1 ? b[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (this.fallback == null) {
+                int n = this.sharedCache.read(getBundle().getBundleId(), this.revision, BundleWebResource.this.path, this.position, b, off, len);
+                if (n != SharedResourceCache.NOT_CACHED) {
+                    if (n > 0) {
+                        this.position += n;
+                    }
+                    return n;
+                }
+                openFallback();
+            }
+            return this.fallback.read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (this.fallback != null) {
+                return this.fallback.skip(n);
+            }
+            long skipped = Math.max(0, Math.min(n, getContentLength() - this.position));
+            this.position += (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (this.fallback != null) {
+                return this.fallback.available();
+            }
+            return (int) Math.max(0, getContentLength() - this.position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.fallback != null) {
+                this.fallback.close();
+            }
+        }
+
+        private void openFallback() throws IOException {
+            this.fallback = openStream();
+            long remaining = this.position;
+            while (remaining > 0) {
+                long skipped = this.fallback.skip(remaining);
+                if (skipped <= 0) {
+                    throw new IOException("Unable to continue reading resource [" + getWebappPath() + "].");
+                }
+                remaining -= skipped;
+            }
+        }
+    }
 }
@@ -20,6 +20,17 @@ import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
 
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryMetadata;
+
+/**
+ * The last modification time, the creation time and the content length of a {@link BundleWebResource}. They are taken
+ * from the {@link BundleEntryMetadata} of the entry, which is obtained with a single lookup. A {@link URLConnection}
+ * to the entry is opened only for the attributes which the metadata does not provide.
+ * <p />
+ * Bundle entries do not record a creation time. When the metadata is available the creation time is the last
+ * modification time of the entry, which is also the value determined through a {@link URLConnection} as the date of a
+ * connection to a bundle entry is unknown.
+ */
 final class BundleWebResourceAttributes {
 
     private static final long TIME_NOT_SET = -1L;
@@ -36,45 +47,41 @@ final class BundleWebResourceAttributes {
 
     private long contentLength = CONTENT_LENGTH_NOT_SET;
 
+    private URLConnection urlConnection;
+
     BundleWebResourceAttributes(BundleWebResource resource) {
         this.resource = resource;
-        URLConnection urlConnection = getURLConnection();
-        if (urlConnection != null) {
-            getLastModified(urlConnection);
-            getCreation(urlConnection);
-            getContentLength(urlConnection);
+
+        BundleEntryMetadata metadata = resource.getEntryMetadata();
+        if (metadata != null) {
+            this.lastModified = metadata.getLastModified();
+            // Bundle entries have no creation time
+            this.creation = this.lastModified;
+            this.contentLength = metadata.getSize();
         }
     }
 
-    long getContentLength(URLConnection urlConnection) {
+    long getContentLength() {
         if (this.contentLength == CONTENT_LENGTH_NOT_SET) {
-            if (urlConnection == null) {
-                urlConnection = getURLConnection();
-            }
-
+            URLConnection urlConnection = getURLConnection();
             if (urlConnection != null) {
-                this.contentLength = determineContentLength(urlConnection);
+                // URLConnection.getContentLength() returns "int", if the bundle entry size exceeds max "int", then the
+                // content length will not be correct.
+                this.contentLength = urlConnection.getContentLength();
             }
         }
 
         return this.contentLength;
     }
 
-    long getCreation(URLConnection urlConnection) {
+    long getCreation() {
         if (this.creation == TIME_NOT_SET) {
-            if (urlConnection == null) {
-                urlConnection = getURLConnection();
-            }
-
+            URLConnection urlConnection = getURLConnection();
             if (urlConnection != null) {
                 this.creation = urlConnection.getDate();
 
                 if (this.creation == CREATION_DATE_UNKNOWN) {
-                    if (this.lastModified == TIME_NOT_SET) {
-                        this.lastModified = urlConnection.getLastModified();
-                    }
-
-                    this.creation = this.lastModified;
+                    this.creation = getLastModified();
                 }
             }
         }
@@ -82,12 +89,9 @@ final class BundleWebResourceAttributes {
         return this.creation;
     }
 
-    long getLastModified(URLConnection urlConnection) {
+    long getLastModified() {
         if (this.lastModified == TIME_NOT_SET) {
-            if (urlConnection == null) {
-                urlConnection = getURLConnection();
-            }
-
+            URLConnection urlConnection = getURLConnection();
             if (urlConnection != null) {
                 this.lastModified = urlConnection.getLastModified();
             }
@@ -97,31 +101,16 @@ final class BundleWebResourceAttributes {
     }
 
     private URLConnection getURLConnection() {
-        try {
-            URL url = this.resource.getURL();
-            if (url != null) {
-                return url.openConnection();
-            } else {
-                return null;
+        if (this.urlConnection == null) {
+            try {
+                URL url = this.resource.getURL();
+                if (url != null) {
+                    this.urlConnection = url.openConnection();
+                }
+            } catch (IOException e) {
+                // The attributes remain unknown
             }
-        } catch (IOException e) {
-            return null;
-        }
-    }
-
-    /**
-     * Returns the bundle entry size. If the BundleFileResolver is EquinoxBundleFileResolver then we will use equinox
-     * specific functionality to get BundleEntry and its size. If the BundleFileResolver is NoOpBundleFileResolver we
-     * will use URLConnection.getContentLength(). Note: URLConnection.getContentLength() returns "int", if the bundle
-     * entry size exceeds max "int", then the content length will not be correct.
-     *
-     * @return the bundle entry size
-     */
-    private long determineContentLength(URLConnection urlConnection) {
-        long size = this.resource.resolveBundleWebResourceSize();
-        if (size == -1 && urlConnection != null) {
-            size = urlConnection.getContentLength();
         }
-        return size;
+        return this.urlConnection;
     }
 }
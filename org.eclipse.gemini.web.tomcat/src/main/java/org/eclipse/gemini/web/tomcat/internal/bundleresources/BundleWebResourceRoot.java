@@ -16,29 +16,305 @@
 
 package org.eclipse.gemini.web.tomcat.internal.bundleresources;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Locale;
 
 import org.apache.catalina.Host;
+import org.apache.catalina.LifecycleException;
 import org.apache.catalina.WebResource;
 import org.apache.catalina.WebResourceSet;
+import org.apache.catalina.webresources.FileResource;
 import org.apache.catalina.webresources.StandardRoot;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
+import org.eclipse.gemini.web.tomcat.internal.support.WarmUpProfile;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class BundleWebResourceRoot extends StandardRoot {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundleWebResourceRoot.class);
+
     private final Bundle bundle;
 
     private final WebResource main;
 
+    private final BundleListener bundleContentListener = new BundleContentListener();
+
+    private volatile BundleEntryIndex entryIndex;
+
+    private volatile boolean entryIndexEnabled = true;
+
+    private final CompressedResourceCache compressedResourceCache;
+
+    private volatile boolean lazyCompressionEnabled;
+
+    private volatile WarmUpProfile warmUpProfile;
+
+    private volatile SharedResourceCache sharedResourceCache;
+
     private Path docBase;
 
+    private volatile BundleContext bundleContext;
+
     public BundleWebResourceRoot(Bundle bundle) {
         this.bundle = bundle;
         this.main = new BundleWebResource(this.bundle, this);
+        this.compressedResourceCache = new CompressedResourceCache(this.bundle);
+    }
+
+    public int getETagCacheSize() {
+        return getETagCache().getSize();
+    }
+
+    public long getLookupCacheHitCount() {
+        return getEntryCache().getHitCount();
+    }
+
+    public long getLookupCacheMissCount() {
+        return getEntryCache().getMissCount();
+    }
+
+    public int getLookupCacheSize() {
+        return getEntryCache().getSize();
+    }
+
+    public int getLookupCacheMaxSize() {
+        return getEntryCache().getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of bundle entry lookups, found or not, which are cached. Only the lookups which are not
+     * answered by the index of the bundle entries are cached. A value less than or equal to zero disables the cache.
+     *
+     * @param lookupCacheMaxSize the maximum number of cached lookups
+     */
+    public void setLookupCacheMaxSize(int lookupCacheMaxSize) {
+        getEntryCache().setMaxSize(lookupCacheMaxSize);
+    }
+
+    public long getLookupCacheTtl() {
+        return getEntryCache().getTtl();
+    }
+
+    /**
+     * Sets the time in milliseconds for which a cached bundle entry lookup is considered valid.
+     *
+     * @param lookupCacheTtl the time to live in milliseconds
+     */
+    public void setLookupCacheTtl(long lookupCacheTtl) {
+        getEntryCache().setTtl(lookupCacheTtl);
+    }
+
+    public boolean isEntryIndexEnabled() {
+        return this.entryIndexEnabled;
+    }
+
+    /**
+     * Enables or disables the index of the bundle entries which is built when the resources are started. When the
+     * index is disabled every lookup is delegated to the framework.
+     *
+     * @param entryIndexEnabled <code>true</code> if the index should be used
+     */
+    public void setEntryIndexEnabled(boolean entryIndexEnabled) {
+        this.entryIndexEnabled = entryIndexEnabled;
+        if (!entryIndexEnabled) {
+            this.entryIndex = null;
+        }
+    }
+
+    public int getEntryIndexSize() {
+        BundleEntryIndex index = this.entryIndex;
+        return index != null ? index.size() : 0;
+    }
+
+    BundleEntryIndex getEntryIndex() {
+        return this.entryIndex;
+    }
+
+    public boolean isLazyCompressionEnabled() {
+        return this.lazyCompressionEnabled;
+    }
+
+    /**
+     * Enables or disables the compression of resources which do not have a precompressed <code>.gz</code> variant in
+     * the bundle. When enabled, a request for the <code>.gz</code> variant of a compressible resource is answered with a
+     * compressed copy, which is created once per bundle revision and stored in the bundle data area.
+     *
+     * @param lazyCompressionEnabled <code>true</code> if missing variants should be created
+     */
+    public void setLazyCompressionEnabled(boolean lazyCompressionEnabled) {
+        this.lazyCompressionEnabled = lazyCompressionEnabled;
+    }
+
+    public String getCompressibleMimeTypes() {
+        return this.compressedResourceCache.getCompressibleMimeTypes();
+    }
+
+    /**
+     * Sets the MIME types of the resources which are compressed when lazy compression is enabled.
+     *
+     * @param compressibleMimeTypes comma separated list of MIME types
+     */
+    public void setCompressibleMimeTypes(String compressibleMimeTypes) {
+        this.compressedResourceCache.setCompressibleMimeTypes(compressibleMimeTypes);
+    }
+
+    public long getCompressionMinSize() {
+        return this.compressedResourceCache.getMinSize();
+    }
+
+    /**
+     * Sets the minimum size in bytes of the resources which are compressed when lazy compression is enabled.
+     *
+     * @param compressionMinSize the minimum size in bytes
+     */
+    public void setCompressionMinSize(long compressionMinSize) {
+        this.compressedResourceCache.setMinSize(compressionMinSize);
+    }
+
+    /**
+     * Sets the profile in which the accessed resources are recorded. The resources recorded in the previous run are
+     * prefetched in the background when the resources are started.
+     *
+     * @param warmUpProfile the profile or <code>null</code> if no profile should be recorded
+     */
+    public void setWarmUpProfile(WarmUpProfile warmUpProfile) {
+        this.warmUpProfile = warmUpProfile;
+    }
+
+    /**
+     * Sets the cache in which the content of small resources is shared with the other web applications. When the
+     * shared cache is enabled the content of the resources is not cached by Tomcat as well, only their metadata is. The
+     * content of a resource held in the shared cache is then streamed from it without being copied to the heap.
+     *
+     * @param sharedResourceCache the cache or <code>null</code> if the content should not be shared
+     */
+    public void setSharedResourceCache(SharedResourceCache sharedResourceCache) {
+        this.sharedResourceCache = sharedResourceCache;
+    }
+
+    SharedResourceCache getSharedResourceCache() {
+        return this.sharedResourceCache;
+    }
+
+    /**
+     * Sets the context through which the bundle is watched for updates and re-resolution. The context of the web
+     * application bundle itself cannot be used as it is no longer valid once the bundle is updated or refreshed.
+     *
+     * @param bundleContext the context or <code>null</code> if the bundle should not be watched
+     */
+    public void setBundleContext(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
+    @Override
+    public WebResource getResource(String path) {
+        WebResource resource = lookupResource(path);
+        WarmUpProfile profile = this.warmUpProfile;
+        if (profile != null && resource.exists()) {
+            profile.recordResource(path);
+        }
+        return resource;
+    }
+
+    private WebResource lookupResource(String path) {
+        WebResource resource = super.getResource(path);
+        if (!resource.exists() && this.lazyCompressionEnabled && path.endsWith(CompressedResourceCache.GZIP_EXTENSION)) {
+            WebResource compressedResource = getCompressedResource(path);
+            if (compressedResource != null) {
+                return compressedResource;
+            }
+        }
+        return resource;
+    }
+
+    private WebResource getCompressedResource(String path) {
+        String originalPath = path.substring(0, path.length() - CompressedResourceCache.GZIP_EXTENSION.length());
+        WebResource original = super.getResource(originalPath);
+        String mimeType = getContext().getServletContext().getMimeType(originalPath);
+        try {
+            File file = this.compressedResourceCache.getCompressedFile(originalPath, original, mimeType);
+            if (file != null) {
+                return new FileResource(this, path, file, true);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to compress resource [" + originalPath + "].", e);
+        }
+        return null;
+    }
+
+    @Override
+    protected void startInternal() throws LifecycleException {
+        // The index has to be available before the resource sets for the nested archives are created
+        buildEntryIndex();
+        SharedResourceCache sharedCache = this.sharedResourceCache;
+        if (sharedCache != null && sharedCache.isEnabled()) {
+            // Keep a single copy of the content, outside of the heap
+            setCacheObjectMaxSize(0);
+        }
+        BundleContext context = this.bundleContext;
+        if (context != null) {
+            context.addBundleListener(this.bundleContentListener);
+        }
+
+        super.startInternal();
+
+        warmUp();
+    }
+
+    private void warmUp() {
+        WarmUpProfile profile = this.warmUpProfile;
+        if (profile == null || profile.getResources().isEmpty()) {
+            return;
+        }
+
+        final List<String> paths = profile.getResources();
+        profile.warmUp("Warm-up resources [" + this.bundle.getSymbolicName() + "]", new Runnable() {
+
+            @Override
+            public void run() {
+                for (String path : paths) {
+                    if (!getState().isAvailable()) {
+                        return;
+                    }
+                    try {
+                        WebResource resource = lookupResource(path);
+                        if (resource.isFile()) {
+                            // Loads the content into the cache
+                            resource.getContent();
+                        }
+                    } catch (RuntimeException e) {
+                        LOGGER.debug("Unable to prefetch resource [" + path + "].", e);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void stopInternal() throws LifecycleException {
+        BundleContext context = this.bundleContext;
+        if (context != null) {
+            try {
+                context.removeBundleListener(this.bundleContentListener);
+            } catch (IllegalStateException e) {
+                // The bundle context is no longer valid, the listener has already been removed by the framework
+            }
+        }
+        this.entryIndex = null;
+        clearCaches();
+
+        super.stopInternal();
     }
 
     @Override
@@ -53,9 +329,9 @@ public class BundleWebResourceRoot extends StandardRoot {
 
         if (archivePath != null) {
             if (archivePath.toLowerCase(Locale.ENGLISH).endsWith(".jar")) {
-                resourceSet = new BundleJarResourceSet(this, webAppMount, base + archivePath, internalPath);
+                resourceSet = new BundleJarResourceSet(this, this.bundle, webAppMount, base + archivePath, archivePath, internalPath);
             } else {
-                WebResource entry = ((BundleWebResource) this.main).getNamedEntry(archivePath).getKey();
+                WebResource entry = ((BundleWebResource) this.main).getNamedEntry(archivePath);
                 if (entry != null) {
                     resourceSet = new BundleWebResourceSet(entry, this, webAppMount, base + archivePath, internalPath);
                 }
@@ -112,6 +388,70 @@ public class BundleWebResourceRoot extends StandardRoot {
         return new BundleWebResourceSet(this.main, this, "/", this.docBase != null ? this.docBase.toAbsolutePath().toString() : null, "/");
     }
 
+    private BundleEntrySource getEntrySource() {
+        return ((BundleWebResource) this.main).getEntrySource();
+    }
+
+    private ETagCache getETagCache() {
+        return ((BundleWebResource) this.main).getETagCache();
+    }
+
+    private BundleEntryCache getEntryCache() {
+        return ((BundleWebResource) this.main).getEntryCache();
+    }
+
+    BundleListener getBundleContentListener() {
+        return this.bundleContentListener;
+    }
+
+    private void clearCaches() {
+        getETagCache().clear();
+        getEntryCache().clear();
+        getEntrySource().getArchive().close();
+        SharedResourceCache sharedCache = this.sharedResourceCache;
+        if (sharedCache != null) {
+            sharedCache.remove(this.bundle.getBundleId());
+        }
+    }
+
+    private void buildEntryIndex() {
+        if (this.entryIndexEnabled && this.bundle.getState() != Bundle.UNINSTALLED && !getEntrySource().isBundleLocationDirectory()) {
+            this.entryIndex = BundleEntryIndex.build(this.bundle, getEntrySource().getFragments(),
+                BundleFileResolverFactory.createBundleFileResolver());
+        } else {
+            this.entryIndex = null;
+        }
+    }
+
+    /**
+     * Drops the index and the cached entity tags when the bundle is updated or when it is re-resolved, e.g. because
+     * fragments have been attached or detached. The index is built again once the bundle is resolved.
+     */
+    private class BundleContentListener implements BundleListener {
+
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            if (event.getBundle() == BundleWebResourceRoot.this.bundle) {
+                switch (event.getType()) {
+                    case BundleEvent.UPDATED:
+                    case BundleEvent.UNRESOLVED:
+                        BundleWebResourceRoot.this.entryIndex = null;
+                        clearCaches();
+                        break;
+                    case BundleEvent.RESOLVED:
+                        clearCaches();
+                        getEntrySource().refreshFragments();
+                        if (getState().isAvailable()) {
+                            buildEntryIndex();
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
     private static class BaseLocation {
 
         private String basePath = "";
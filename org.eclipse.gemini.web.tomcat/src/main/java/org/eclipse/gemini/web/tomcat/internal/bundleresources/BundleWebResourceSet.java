@@ -19,7 +19,6 @@ package org.eclipse.gemini.web.tomcat.internal.bundleresources;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.catalina.LifecycleException;
@@ -54,12 +53,9 @@ final class BundleWebResourceSet extends AbstractReadOnlyResourceSet {
         String webAppMount = getWebAppMount();
         WebResourceRoot root = getRoot();
         if (path.startsWith(webAppMount)) {
-            Entry<BundleWebResource, URL> entry = getNamedEntry(path.substring(webAppMount.length()));
-            if (entry != null) {
-                WebResource bundleEntry = entry.getKey();
-                if (bundleEntry != null) {
-                    return bundleEntry;
-                }
+            WebResource bundleEntry = getNamedEntry(path.substring(webAppMount.length()));
+            if (bundleEntry != null) {
+                return bundleEntry;
             }
         }
         return new EmptyResource(root, path);
@@ -70,18 +66,15 @@ final class BundleWebResourceSet extends AbstractReadOnlyResourceSet {
         checkPath(path);
         String webAppMount = getWebAppMount();
         if (path.startsWith(webAppMount)) {
-            Entry<BundleWebResource, URL> entry = getNamedEntry(path.substring(webAppMount.length()));
-            if (entry != null) {
-                BundleWebResource bundleEntry = entry.getKey();
-                if (bundleEntry != null) {
-                    List<BundleWebResource> list = bundleEntry.list();
-                    if (list != null) {
-                        List<String> resources = new ArrayList<>();
-                        for (BundleWebResource resource : list) {
-                            resources.add(resource.getName());
-                        }
-                        return resources.toArray(new String[resources.size()]);
+            BundleWebResource bundleEntry = getNamedEntry(path.substring(webAppMount.length()));
+            if (bundleEntry != null) {
+                List<BundleWebResource> list = bundleEntry.list();
+                if (list != null) {
+                    List<String> resources = new ArrayList<>();
+                    for (BundleWebResource resource : list) {
+                        resources.add(resource.getName());
                     }
+                    return resources.toArray(new String[resources.size()]);
                 }
             }
         } else {
@@ -105,23 +98,20 @@ final class BundleWebResourceSet extends AbstractReadOnlyResourceSet {
         String webAppMount = getWebAppMount();
         ResourceSet<String> result = new ResourceSet<>();
         if (path.startsWith(webAppMount)) {
-            Entry<BundleWebResource, URL> entry = getNamedEntry(path.substring(webAppMount.length()));
-            if (entry != null) {
-                BundleWebResource bundleEntry = entry.getKey();
-                if (bundleEntry != null) {
-                    List<BundleWebResource> list = bundleEntry.list();
-                    if (list != null) {
-                        for (BundleWebResource bEntry : list) {
-                            StringBuilder sb = new StringBuilder(path);
-                            if (path.charAt(path.length() - 1) != '/') {
-                                sb.append('/');
-                            }
-                            sb.append(bEntry.getName());
-                            if (bEntry.isDirectory()) {
-                                sb.append('/');
-                            }
-                            result.add(sb.toString());
+            BundleWebResource bundleEntry = getNamedEntry(path.substring(webAppMount.length()));
+            if (bundleEntry != null) {
+                List<BundleWebResource> list = bundleEntry.list();
+                if (list != null) {
+                    for (BundleWebResource bEntry : list) {
+                        StringBuilder sb = new StringBuilder(path);
+                        if (path.charAt(path.length() - 1) != '/') {
+                            sb.append('/');
                         }
+                        sb.append(bEntry.getName());
+                        if (bEntry.isDirectory()) {
+                            sb.append('/');
+                        }
+                        result.add(sb.toString());
                     }
                 }
             }
@@ -152,12 +142,12 @@ final class BundleWebResourceSet extends AbstractReadOnlyResourceSet {
         // no-op
     }
 
-    private Entry<BundleWebResource, URL> getNamedEntry(String name) {
+    private BundleWebResource getNamedEntry(String name) {
         return ((BundleWebResource) this.bundleEntry).getNamedEntry(name);
     }
 
     @Override
     public void gc() {
-        // no-op
+        ((BundleWebResource) this.bundleEntry).getEntryCache().gc();
     }
 }
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.catalina.WebResource;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.osgi.framework.Bundle;
+
+/**
+ * On disk cache of GZIP compressed variants of the resources of a bundle. Each resource is compressed once per bundle
+ * revision, the first time its variant is requested, and the compressed file is reused afterwards.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class CompressedResourceCache {
+
+    static final String GZIP_EXTENSION = ".gz";
+
+    static final String DEFAULT_COMPRESSIBLE_MIME_TYPES = "text/html,text/xml,text/plain,text/css,text/javascript,application/javascript,application/json,image/svg+xml";
+
+    static final long DEFAULT_MIN_SIZE = 2048L;
+
+    private static final String CACHE_DIRECTORY = "gzip";
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private final Bundle bundle;
+
+    private volatile Set<String> compressibleMimeTypes = parseMimeTypes(DEFAULT_COMPRESSIBLE_MIME_TYPES);
+
+    private volatile long minSize = DEFAULT_MIN_SIZE;
+
+    CompressedResourceCache(Bundle bundle) {
+        this.bundle = bundle;
+    }
+
+    /**
+     * Returns the compressed variant of the given resource, compressing it if this has not been done yet for the
+     * current revision of the bundle.
+     *
+     * @param path the web application path of the resource
+     * @param resource the resource
+     * @param mimeType the MIME type of the resource
+     * @return the file with the compressed content or <code>null</code> if the resource should not be compressed
+     * @throws IOException if the resource cannot be compressed
+     */
+    File getCompressedFile(String path, WebResource resource, String mimeType) throws IOException {
+        if (!resource.exists() || !resource.isFile() || mimeType == null || !this.compressibleMimeTypes.contains(mimeType)
+            || resource.getContentLength() < this.minSize) {
+            return null;
+        }
+
+        String relativePath = path.startsWith(PATH_SEPARATOR) ? path.substring(1) : path;
+        File file = new File(new File(BundleEntryExtractor.getRevisionDirectory(this.bundle), CACHE_DIRECTORY), relativePath + GZIP_EXTENSION);
+        if (!file.isFile()) {
+            try (InputStream is = resource.getInputStream()) {
+                if (is == null) {
+                    return null;
+                }
+                BundleEntryExtractor.store(is, file, true);
+            }
+        }
+        return file;
+    }
+
+    String getCompressibleMimeTypes() {
+        StringBuilder sb = new StringBuilder();
+        for (String mimeType : this.compressibleMimeTypes) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(mimeType);
+        }
+        return sb.toString();
+    }
+
+    void setCompressibleMimeTypes(String compressibleMimeTypes) {
+        this.compressibleMimeTypes = parseMimeTypes(compressibleMimeTypes);
+    }
+
+    long getMinSize() {
+        return this.minSize;
+    }
+
+    void setMinSize(long minSize) {
+        this.minSize = minSize;
+    }
+
+    private static Set<String> parseMimeTypes(String mimeTypes) {
+        Set<String> result = new HashSet<>();
+        for (String mimeType : mimeTypes.split(",")) {
+            String trimmed = mimeType.trim();
+            if (trimmed.length() > 0) {
+                result.add(trimmed);
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+}
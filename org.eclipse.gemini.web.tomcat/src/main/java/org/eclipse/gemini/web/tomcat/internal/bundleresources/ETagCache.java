@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.apache.catalina.WebResource;
+
+/**
+ * Cache of the strong entity tags of the resources of a bundle. The entity tag of a resource is derived from the CRC-32
+ * and the size of its content. They are taken from the central directory when the bundle is installed as an archive
+ * which contains the entry, otherwise they are computed from the content of the resource. In both cases the entity tag
+ * depends only on the content, so it remains the same across redeployments of an unchanged resource.
+ * <p />
+ * The number of cached entity tags is bounded, the least recently used ones are evicted when the cache is full. The
+ * cache has to be cleared when the bundle is updated or when its fragments change.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class ETagCache {
+
+    static final int DEFAULT_MAX_SIZE = 4096;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final BundleArchive archive;
+
+    private final int maxSize;
+
+    private final Map<String, String> eTags = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > ETagCache.this.maxSize;
+        }
+    };
+
+    private final Object monitor = new Object();
+
+    ETagCache(BundleArchive archive) {
+        this(archive, DEFAULT_MAX_SIZE);
+    }
+
+    ETagCache(BundleArchive archive, int maxSize) {
+        this.archive = archive;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the strong entity tag of the given resource.
+     *
+     * @param path the path of the resource in the bundle
+     * @param resource the resource
+     * @return the entity tag or <code>null</code> if the content of the resource cannot be read
+     */
+    String getETag(String path, WebResource resource) {
+        String eTag;
+        synchronized (this.monitor) {
+            eTag = this.eTags.get(path);
+        }
+        if (eTag == null) {
+            // Computed outside of the lock as the content of the resource may have to be read
+            eTag = computeETag(path, resource);
+            if (eTag != null) {
+                synchronized (this.monitor) {
+                    this.eTags.put(path, eTag);
+                }
+            }
+        }
+        return eTag;
+    }
+
+    /**
+     * Removes all entity tags.
+     */
+    void clear() {
+        synchronized (this.monitor) {
+            this.eTags.clear();
+        }
+    }
+
+    int getSize() {
+        synchronized (this.monitor) {
+            return this.eTags.size();
+        }
+    }
+
+    private String computeETag(String path, WebResource resource) {
+        ZipEntry zipEntry = this.archive.getEntry(path);
+        if (zipEntry != null && zipEntry.getCrc() != -1 && zipEntry.getSize() != -1) {
+            return formatETag(zipEntry.getCrc(), zipEntry.getSize());
+        }
+
+        // The entry is in a directory or is supplied by a fragment
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream is = resource.getInputStream()) {
+            if (is == null) {
+                return null;
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+                size += n;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return formatETag(crc.getValue(), size);
+    }
+
+    private static String formatETag(long crc, long size) {
+        return "\"" + Long.toHexString(crc) + "-" + size + "\"";
+    }
+}
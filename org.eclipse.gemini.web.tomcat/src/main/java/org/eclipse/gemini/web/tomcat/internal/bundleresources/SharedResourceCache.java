@@ -0,0 +1,502 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the content of small static resources which is shared by all web applications. The content is stored
+ * outside of the Java heap in direct {@link ByteBuffer} slabs. A slab is divided into chunks of the size class of the
+ * first entry stored in it, the size classes being the powers of two from {@link #MIN_CHUNK_SIZE} to the maximum entry
+ * size. When the memory budget is used up the least recently used entries are evicted, whatever their size class,
+ * until a chunk of the required size class is free. A slab whose entries have all been evicted or removed can be used
+ * for any size class again.
+ * <p />
+ * Entries are keyed by the bundle id, the bundle revision and the path of the resource, so that an updated bundle
+ * never sees the content of its previous revision.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+public final class SharedResourceCache {
+
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 64 * 1024;
+
+    static final int SLAB_SIZE = 1024 * 1024;
+
+    static final int MIN_CHUNK_SIZE = 512;
+
+    /** returned by {@link #read(long, long, String, int, byte[], int, int)} when the content is no longer cached */
+    static final int NOT_CACHED = -2;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final List<Slab> slabs = new ArrayList<>();
+
+    /** the slabs of each size class which have free chunks */
+    private final List<Deque<Slab>> partialSlabs = new ArrayList<>();
+
+    /** the slabs which are not assigned to a size class */
+    private final Deque<Slab> emptySlabs = new ArrayDeque<>();
+
+    private final Object monitor = new Object();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private long usedMemory;
+
+    private volatile long maxMemory;
+
+    private volatile int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+
+    /**
+     * Creates a disabled cache, {@link #setMaxMemory(long)} enables it.
+     */
+    public SharedResourceCache() {
+        initPartialSlabs();
+    }
+
+    /**
+     * Checks whether content of the given size can be cached.
+     *
+     * @param size the size of the content
+     * @return <code>true</code> if the cache is enabled and the content is small enough
+     */
+    boolean isCacheable(long size) {
+        return isEnabled() && size >= 0 && size <= this.maxEntrySize;
+    }
+
+    /**
+     * @return <code>true</code> if the memory budget allows at least one slab
+     */
+    public boolean isEnabled() {
+        return this.maxMemory >= SLAB_SIZE;
+    }
+
+    /**
+     * Returns a copy of the cached content of the given resource.
+     *
+     * @param bundleId the id of the bundle which contains the resource
+     * @param revision the revision of the bundle
+     * @param path the path of the resource
+     * @return the content or <code>null</code> if it is not cached
+     */
+    byte[] get(long bundleId, long revision, String path) {
+        byte[] content = null;
+        synchronized (this.monitor) {
+            Entry entry = this.entries.get(new Key(bundleId, revision, path));
+            if (entry != null) {
+                content = new byte[entry.length];
+                ByteBuffer buffer = entry.slab.buffer.duplicate();
+                buffer.position(entry.offset);
+                buffer.get(content);
+            }
+        }
+
+        if (content != null) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+        return content;
+    }
+
+    /**
+     * Checks whether the content of the given resource is cached, so that it can be read with
+     * {@link #read(long, long, String, int, byte[], int, int)}. The check counts as a hit or a miss.
+     *
+     * @param bundleId the id of the bundle which contains the resource
+     * @param revision the revision of the bundle
+     * @param path the path of the resource
+     * @return <code>true</code> if the content is cached
+     */
+    boolean contains(long bundleId, long revision, String path) {
+        boolean contains;
+        synchronized (this.monitor) {
+            contains = this.entries.get(new Key(bundleId, revision, path)) != null;
+        }
+
+        if (contains) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+        return contains;
+    }
+
+    /**
+     * Copies a part of the cached content of the given resource into the given buffer. Unlike
+     * {@link #get(long, long, String)} this does not create a copy of the whole content on the heap. As the entry may be
+     * evicted between two reads, the caller has to be prepared to continue from the resource itself.
+     *
+     * @param bundleId the id of the bundle which contains the resource
+     * @param revision the revision of the bundle
+     * @param path the path of the resource
+     * @param position the position in the content from which to read
+     * @param b the buffer into which the content is copied
+     * @param off the offset in the buffer
+     * @param len the maximum number of bytes to copy
+     * @return the number of bytes copied, <code>-1</code> if the position is at the end of the content or
+     *         {@link #NOT_CACHED} if the content is no longer cached
+     */
+    int read(long bundleId, long revision, String path, int position, byte[] b, int off, int len) {
+        synchronized (this.monitor) {
+            Entry entry = this.entries.get(new Key(bundleId, revision, path));
+            if (entry == null) {
+                return NOT_CACHED;
+            }
+            if (position >= entry.length) {
+                return -1;
+            }
+
+            int count = Math.min(len, entry.length - position);
+            ByteBuffer buffer = entry.slab.buffer.duplicate();
+            buffer.position(entry.offset + position);
+            buffer.get(b, off, count);
+            return count;
+        }
+    }
+
+    /**
+     * Caches the content of the given resource. Content which is not {@link #isCacheable(long) cacheable} is ignored.
+     *
+     * @param bundleId the id of the bundle which contains the resource
+     * @param revision the revision of the bundle
+     * @param path the path of the resource
+     * @param content the content
+     */
+    void put(long bundleId, long revision, String path, byte[] content) {
+        if (!isCacheable(content.length)) {
+            return;
+        }
+
+        Key key = new Key(bundleId, revision, path);
+        int sizeClass = getSizeClass(content.length);
+        synchronized (this.monitor) {
+            if (this.entries.containsKey(key)) {
+                return;
+            }
+
+            Slab slab = getSlabWithFreeChunk(sizeClass);
+            if (slab == null) {
+                return;
+            }
+
+            Entry entry = new Entry(slab, slab.allocateChunk(), content.length);
+            if (!slab.hasFreeChunks()) {
+                this.partialSlabs.get(sizeClass).remove(slab);
+            }
+            ByteBuffer buffer = slab.buffer.duplicate();
+            buffer.position(entry.offset);
+            buffer.put(content);
+
+            this.entries.put(key, entry);
+            this.usedMemory += content.length;
+        }
+    }
+
+    /**
+     * Removes all entries of the given bundle.
+     *
+     * @param bundleId the id of the bundle
+     */
+    void remove(long bundleId) {
+        synchronized (this.monitor) {
+            Iterator<Map.Entry<Key, Entry>> iterator = this.entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> entry = iterator.next();
+                if (entry.getKey().bundleId == bundleId) {
+                    iterator.remove();
+                    release(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries and releases the slabs.
+     */
+    public void clear() {
+        synchronized (this.monitor) {
+            this.entries.clear();
+            this.slabs.clear();
+            this.emptySlabs.clear();
+            this.usedMemory = 0;
+            initPartialSlabs();
+        }
+    }
+
+    public long getMaxMemory() {
+        return this.maxMemory;
+    }
+
+    /**
+     * Sets the memory budget of the cache. The budget is used in slabs of 1 MB, a budget smaller than one slab
+     * disables the cache. Lowering the budget clears the cache.
+     *
+     * @param maxMemory the maximum number of bytes allocated outside of the heap
+     */
+    public void setMaxMemory(long maxMemory) {
+        long previousMaxMemory = this.maxMemory;
+        this.maxMemory = maxMemory;
+        if (maxMemory < previousMaxMemory) {
+            clear();
+        }
+    }
+
+    public int getMaxEntrySize() {
+        return this.maxEntrySize;
+    }
+
+    /**
+     * Sets the size of the largest resource which is cached. The size is limited by the slab size. Changing the size
+     * clears the cache.
+     *
+     * @param maxEntrySize the maximum size in bytes
+     */
+    public void setMaxEntrySize(int maxEntrySize) {
+        synchronized (this.monitor) {
+            this.maxEntrySize = Math.min(Math.max(maxEntrySize, 0), SLAB_SIZE);
+            clear();
+        }
+    }
+
+    public long getAllocatedMemory() {
+        synchronized (this.monitor) {
+            return (long) this.slabs.size() * SLAB_SIZE;
+        }
+    }
+
+    public long getUsedMemory() {
+        synchronized (this.monitor) {
+            return this.usedMemory;
+        }
+    }
+
+    public int getEntryCount() {
+        synchronized (this.monitor) {
+            return this.entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Returns a slab of the given size class with a free chunk. A slab which is not assigned to a size class or a new
+     * slab is used when all slabs of the size class are full. When the memory budget does not allow a new slab, the
+     * least recently used entries are evicted until one of the two is available.
+     */
+    private Slab getSlabWithFreeChunk(int sizeClass) {
+        Deque<Slab> partial = this.partialSlabs.get(sizeClass);
+        while (partial.isEmpty()) {
+            Slab slab = this.emptySlabs.poll();
+            if (slab == null) {
+                slab = allocateSlab();
+            }
+            if (slab != null) {
+                slab.assign(sizeClass);
+                partial.add(slab);
+            } else if (!evictLeastRecentlyUsed()) {
+                return null;
+            }
+        }
+        return partial.peek();
+    }
+
+    private Slab allocateSlab() {
+        if ((long) (this.slabs.size() + 1) * SLAB_SIZE > this.maxMemory) {
+            return null;
+        }
+
+        Slab slab = new Slab(ByteBuffer.allocateDirect(SLAB_SIZE));
+        this.slabs.add(slab);
+        return slab;
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        if (!iterator.hasNext()) {
+            return false;
+        }
+
+        Entry entry = iterator.next();
+        iterator.remove();
+        release(entry);
+        this.evictionCount.incrementAndGet();
+        return true;
+    }
+
+    private void release(Entry entry) {
+        Slab slab = entry.slab;
+        boolean full = !slab.hasFreeChunks();
+        slab.releaseChunk(entry.offset);
+        this.usedMemory -= entry.length;
+
+        Deque<Slab> partial = this.partialSlabs.get(slab.sizeClass);
+        if (slab.isEmpty()) {
+            // The slab can be used for any size class again
+            if (!full) {
+                partial.remove(slab);
+            }
+            slab.unassign();
+            this.emptySlabs.add(slab);
+        } else if (full) {
+            partial.add(slab);
+        }
+    }
+
+    private void initPartialSlabs() {
+        this.partialSlabs.clear();
+        for (int chunkSize = MIN_CHUNK_SIZE; chunkSize <= SLAB_SIZE; chunkSize <<= 1) {
+            this.partialSlabs.add(new ArrayDeque<Slab>());
+        }
+    }
+
+    private static int getSizeClass(int length) {
+        int sizeClass = 0;
+        while (getChunkSize(sizeClass) < length) {
+            sizeClass++;
+        }
+        return sizeClass;
+    }
+
+    private static int getChunkSize(int sizeClass) {
+        return MIN_CHUNK_SIZE << sizeClass;
+    }
+
+    private static final class Key {
+
+        private final long bundleId;
+
+        private final long revision;
+
+        private final String path;
+
+        private Key(long bundleId, long revision, String path) {
+            this.bundleId = bundleId;
+            this.revision = revision;
+            this.path = path;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.path.hashCode();
+            result = 31 * result + (int) (this.bundleId ^ this.bundleId >>> 32);
+            result = 31 * result + (int) (this.revision ^ this.revision >>> 32);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return this.bundleId == other.bundleId && this.revision == other.revision && this.path.equals(other.path);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Slab slab;
+
+        private final int offset;
+
+        private final int length;
+
+        private Entry(Slab slab, int offset, int length) {
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Slab {
+
+        private static final int UNASSIGNED = -1;
+
+        private final ByteBuffer buffer;
+
+        private final Deque<Integer> freeOffsets = new ArrayDeque<>();
+
+        private int sizeClass = UNASSIGNED;
+
+        private int chunkCount;
+
+        private Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void assign(int sizeClass) {
+            this.sizeClass = sizeClass;
+            int chunkSize = getChunkSize(sizeClass);
+            this.chunkCount = SLAB_SIZE / chunkSize;
+            for (int i = 0; i < this.chunkCount; i++) {
+                this.freeOffsets.add(i * chunkSize);
+            }
+        }
+
+        private void unassign() {
+            this.sizeClass = UNASSIGNED;
+            this.chunkCount = 0;
+            this.freeOffsets.clear();
+        }
+
+        private int allocateChunk() {
+            return this.freeOffsets.poll();
+        }
+
+        private void releaseChunk(int offset) {
+            this.freeOffsets.push(offset);
+        }
+
+        private boolean hasFreeChunks() {
+            return !this.freeOffsets.isEmpty();
+        }
+
+        private boolean isEmpty() {
+            return this.freeOffsets.size() == this.chunkCount;
+        }
+    }
+}
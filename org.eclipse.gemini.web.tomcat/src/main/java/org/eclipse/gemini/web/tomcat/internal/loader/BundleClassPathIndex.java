@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the entries of the JARs on the Bundle-ClassPath of a bundle, which maps each entry name to the JARs which
+ * contain it, in the declared order. Lookups go directly to the owning JAR and misses are answered without opening any
+ * JAR.
+ * <p />
+ * The index is built once per bundle revision and stored in the bundle data area next to the other files derived from
+ * the revision, see {@link BundleEntryExtractor#getRevisionDirectory(Bundle)}.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is immutable and therefore thread safe.
+ */
+final class BundleClassPathIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundleClassPathIndex.class);
+
+    private static final String INDEX_FILE = "bundle-class-path.index";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final String bundleClassPath;
+
+    private final String[] jars;
+
+    private final URL[] jarURLs;
+
+    private final String[][] entryNames;
+
+    private final Map<String, int[]> owners;
+
+    private BundleClassPathIndex(String bundleClassPath, String[] jars, URL[] jarURLs, String[][] entryNames) {
+        this.bundleClassPath = bundleClassPath;
+        this.jars = jars;
+        this.jarURLs = jarURLs;
+        this.entryNames = entryNames;
+
+        this.owners = new HashMap<>();
+        for (int i = 0; i < entryNames.length; i++) {
+            for (String entryName : entryNames[i]) {
+                int[] jarIndexes = this.owners.get(entryName);
+                if (jarIndexes == null) {
+                    jarIndexes = new int[] { i };
+                } else if (jarIndexes[jarIndexes.length - 1] != i) {
+                    jarIndexes = Arrays.copyOf(jarIndexes, jarIndexes.length + 1);
+                    jarIndexes[jarIndexes.length - 1] = i;
+                }
+                this.owners.put(entryName, jarIndexes);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the given bundle, reading it from the bundle data area if it has been stored for the
+     * current revision of the bundle and building and storing it otherwise. The index of a bundle without JARs on its
+     * Bundle-ClassPath is empty and is not stored.
+     *
+     * @param bundle the bundle
+     * @return the index
+     */
+    static BundleClassPathIndex create(Bundle bundle) {
+        String bundleClassPath = getBundleClassPath(bundle);
+        if (BundleClassPathURLExtractor.getBundleClassPathJars(bundle).isEmpty()) {
+            return new BundleClassPathIndex(bundleClassPath, new String[0], new URL[0], new String[0][]);
+        }
+
+        File indexFile = new File(BundleEntryExtractor.getRevisionDirectory(bundle), INDEX_FILE);
+        if (indexFile.isFile()) {
+            try {
+                BundleClassPathIndex index = read(bundle, indexFile);
+                if (index.bundleClassPath.equals(bundleClassPath)) {
+                    return index;
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Unable to read the Bundle-ClassPath index [" + indexFile + "], rebuilding it.", e);
+            }
+        }
+
+        BundleClassPathIndex index = build(bundle);
+        try {
+            index.store(indexFile);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to store the Bundle-ClassPath index [" + indexFile + "].", e);
+        }
+        return index;
+    }
+
+    /**
+     * Builds the index of the given bundle by reading its Bundle-ClassPath JARs.
+     *
+     * @param bundle the bundle
+     * @return the index
+     */
+    static BundleClassPathIndex build(Bundle bundle) {
+        List<String> jars = BundleClassPathURLExtractor.getBundleClassPathJars(bundle);
+        URL[] jarURLs = new URL[jars.size()];
+        String[][] entryNames = new String[jars.size()][];
+        for (int i = 0; i < jars.size(); i++) {
+            URL entryURL = bundle.getEntry(jars.get(i));
+            if (entryURL == null) {
+                entryNames[i] = new String[0];
+                continue;
+            }
+
+            File localJar = BundleClassPathURLExtractor.getLocalJar(bundle, jars.get(i), entryURL);
+            jarURLs[i] = toJarURL(localJar, entryURL);
+            entryNames[i] = localJar != null ? readEntryNames(localJar, entryURL) : readEntryNames(entryURL);
+        }
+        return new BundleClassPathIndex(getBundleClassPath(bundle), jars.toArray(new String[jars.size()]), jarURLs, entryNames);
+    }
+
+    private static String[] readEntryNames(File localJar, URL entryURL) {
+        // Only the central directory of a local JAR has to be read
+        List<String> names = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(localJar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read the entries of Bundle-ClassPath entry [" + entryURL + "].", e);
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    private static String[] readEntryNames(URL entryURL) {
+        List<String> names = new ArrayList<>();
+        try (InputStream inputStream = entryURL.openStream(); JarInputStream jarInputStream = new JarInputStream(inputStream)) {
+            JarEntry entry;
+            while ((entry = jarInputStream.getNextJarEntry()) != null) {
+                names.add(entry.getName());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read the entries of Bundle-ClassPath entry [" + entryURL + "].", e);
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    private static BundleClassPathIndex read(Bundle bundle, File indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported Bundle-ClassPath index format.");
+            }
+            String bundleClassPath = in.readUTF();
+            int jarCount = in.readInt();
+            String[] jars = new String[jarCount];
+            URL[] jarURLs = new URL[jarCount];
+            String[][] entryNames = new String[jarCount][];
+            for (int i = 0; i < jarCount; i++) {
+                jars[i] = in.readUTF();
+                URL entryURL = bundle.getEntry(jars[i]);
+                jarURLs[i] = entryURL != null ? toJarURL(BundleClassPathURLExtractor.getLocalJar(bundle, jars[i], entryURL), entryURL) : null;
+                entryNames[i] = new String[in.readInt()];
+                for (int j = 0; j < entryNames[i].length; j++) {
+                    entryNames[i][j] = in.readUTF();
+                }
+            }
+            return new BundleClassPathIndex(bundleClassPath, jars, jarURLs, entryNames);
+        }
+    }
+
+    private void store(File indexFile) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(this.bundleClassPath);
+            out.writeInt(this.jars.length);
+            for (int i = 0; i < this.jars.length; i++) {
+                out.writeUTF(this.jars[i]);
+                out.writeInt(this.entryNames[i].length);
+                for (String entryName : this.entryNames[i]) {
+                    out.writeUTF(entryName);
+                }
+            }
+        }
+        BundleEntryExtractor.store(new ByteArrayInputStream(bytes.toByteArray()), indexFile, false);
+    }
+
+    private static String getBundleClassPath(Bundle bundle) {
+        String bundleClassPath = bundle.getHeaders().get(org.osgi.framework.Constants.BUNDLE_CLASSPATH);
+        return bundleClassPath != null ? bundleClassPath : "";
+    }
+
+    private static URL toJarURL(File localJar, URL entryURL) {
+        try {
+            return BundleClassPathURLExtractor.toJarURI(localJar != null ? localJar.toURI().toURL() : entryURL).toURL();
+        } catch (URISyntaxException | MalformedURLException e) {
+            LOGGER.warn("Skipping: " + entryURL, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of JARs on the Bundle-ClassPath
+     */
+    int getJarCount() {
+        return this.jars.length;
+    }
+
+    /**
+     * @return the names of the entries of the JAR with the given index
+     */
+    List<String> getEntryNames(int jarIndex) {
+        return Collections.unmodifiableList(Arrays.asList(this.entryNames[jarIndex]));
+    }
+
+    /**
+     * Finds the entry with the given name in the first JAR which contains it.
+     *
+     * @param name the entry name
+     * @return the URL of the entry or <code>null</code> if no JAR contains it
+     */
+    URL findResource(String name) {
+        int[] jarIndexes = this.owners.get(name);
+        if (jarIndexes == null) {
+            return null;
+        }
+        for (int jarIndex : jarIndexes) {
+            URL url = createURL(jarIndex, name);
+            if (url != null) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the entries with the given name in all JARs which contain it.
+     *
+     * @param name the entry name
+     * @return the URLs of the entries, in the order of the JARs
+     */
+    List<URL> findResources(String name) {
+        int[] jarIndexes = this.owners.get(name);
+        if (jarIndexes == null) {
+            return Collections.emptyList();
+        }
+        List<URL> urls = new ArrayList<>(jarIndexes.length);
+        for (int jarIndex : jarIndexes) {
+            URL url = createURL(jarIndex, name);
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+
+    private URL createURL(int jarIndex, String name) {
+        URL jarURL = this.jarURLs[jarIndex];
+        if (jarURL == null) {
+            return null;
+        }
+        try {
+            return new URL(jarURL, name);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+}
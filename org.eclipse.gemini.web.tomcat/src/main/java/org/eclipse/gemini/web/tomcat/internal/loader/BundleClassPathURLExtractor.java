@@ -16,12 +16,18 @@
 
 package org.eclipse.gemini.web.tomcat.internal.loader;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
 import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,33 +38,74 @@ final class BundleClassPathURLExtractor {
 
     private static final String JAR_EXTENSION = ".jar";
 
+    /**
+     * Returns the URLs of the JARs on the Bundle-ClassPath of the given bundle, in the declared order. The URLs refer to
+     * local copies of the JARs when they can be provided, see {@link #getLocalJar(Bundle, String, URL)}.
+     */
     public static Set<URI> extractBundleClassPathURLs(Bundle bundle) {
-        Set<URI> results = new HashSet<>();
+        Set<URI> results = new LinkedHashSet<>();
+        for (String entry : getBundleClassPathJars(bundle)) {
+            URL entryUrl = bundle.getEntry(entry);
+            if (entryUrl != null) {
+                try {
+                    File localJar = getLocalJar(bundle, entry, entryUrl);
+                    results.add(toJarURI(localJar != null ? localJar.toURI().toURL() : entryUrl));
+                } catch (URISyntaxException | MalformedURLException e) {
+                    if (LOGGER.isWarnEnabled()) {
+                        LOGGER.warn("Skipping: " + entryUrl, e);
+                    }
+                }
+            } else {
+                if (LOGGER.isWarnEnabled()) {
+                    LOGGER.warn("Bundle-ClassPath entry '" + entry + "' is not present in bundle " + bundle.getSymbolicName() + " "
+                        + bundle.getVersion() + " and has been skipped");
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the paths of the JARs on the Bundle-ClassPath of the given bundle, in the declared order and without
+     * their attributes.
+     */
+    static List<String> getBundleClassPathJars(Bundle bundle) {
+        List<String> jars = new ArrayList<>();
         String bcp = bundle.getHeaders().get(org.osgi.framework.Constants.BUNDLE_CLASSPATH);
         if (bcp != null) {
             String[] entries = bcp.split(",");
             for (String entry : entries) {
-                if (isJarEntry(entry)) {
-                    URL entryUrl = bundle.getEntry(entry);
-                    if (entryUrl != null) {
-                        try {
-                            URI entryAsJarUrl = new URI("jar", entryUrl.toString() + "!/", null);
-                            results.add(entryAsJarUrl);
-                        } catch (URISyntaxException e) {
-                            if (LOGGER.isWarnEnabled()) {
-                                LOGGER.warn("Skipping: " + entryUrl, e);
-                            }
-                        }
-                    } else {
-                        if (LOGGER.isWarnEnabled()) {
-                            LOGGER.warn("Bundle-ClassPath entry '" + entry + "' is not present in bundle " + bundle.getSymbolicName() + " "
-                                + bundle.getVersion() + " and has been skipped");
-                        }
-                    }
+                int index = entry.indexOf(';');
+                entry = (index != -1 ? entry.substring(0, index) : entry).trim();
+                if (isJarEntry(entry) && !jars.contains(entry)) {
+                    jars.add(entry);
                 }
             }
         }
-        return results;
+        return jars;
+    }
+
+    /**
+     * Returns a local file with the content of the given Bundle-ClassPath JAR, so that it can be read with random access
+     * as a {@link java.util.jar.JarFile} rather than through the stream of its bundle entry. JARs of packed bundles are
+     * copied once per bundle revision, see {@link BundleEntryExtractor}.
+     *
+     * @return the local file or <code>null</code> if it cannot be provided
+     */
+    static File getLocalJar(Bundle bundle, String entry, URL entryUrl) {
+        try {
+            return BundleEntryExtractor.getLocalFile(bundle, entry, entryUrl);
+        } catch (IOException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Unable to provide a local copy of Bundle-ClassPath entry '" + entry + "' of bundle " + bundle.getSymbolicName() + " "
+                    + bundle.getVersion(), e);
+            }
+            return null;
+        }
+    }
+
+    static URI toJarURI(URL entryUrl) throws URISyntaxException {
+        return new URI("jar", entryUrl.toString() + "!/", null);
     }
 
     private static boolean isJarEntry(String entry) {
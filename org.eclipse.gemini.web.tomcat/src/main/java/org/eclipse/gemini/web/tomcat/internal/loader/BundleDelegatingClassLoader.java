@@ -36,6 +36,10 @@ import org.osgi.framework.Bundle;
  */
 class BundleDelegatingClassLoader extends ClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private final ClassLoader bridge;
 
     private final Bundle backingBundle;
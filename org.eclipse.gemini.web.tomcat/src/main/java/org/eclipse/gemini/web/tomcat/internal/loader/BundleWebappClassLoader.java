@@ -26,8 +26,13 @@ import java.net.URLClassLoader;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.catalina.Context;
 import org.apache.catalina.Lifecycle;
@@ -35,7 +40,9 @@ import org.apache.catalina.LifecycleException;
 import org.apache.catalina.LifecycleListener;
 import org.apache.catalina.LifecycleState;
 import org.apache.tomcat.util.IntrospectionUtils;
+import org.eclipse.gemini.web.tomcat.internal.support.WarmUpProfile;
 import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoadingStatistics;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleReference;
 import org.slf4j.Logger;
@@ -43,6 +50,11 @@ import org.slf4j.LoggerFactory;
 
 public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle, BundleReference {
 
+    static {
+        // Class loading locks are taken per class name rather than on the class loader
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /**
@@ -53,7 +65,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
     /**
      * The delegating class loader for the web application's bundle(s).
      */
-    private final ClassLoader bundleDelegatingClassLoader;
+    private final ChainedClassLoader bundleDelegatingClassLoader;
 
     private final ClassLoaderCustomizer classLoaderCustomizer;
 
@@ -61,6 +73,46 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
 
     private volatile LifecycleState state = LifecycleState.NEW;
 
+    private volatile WarmUpProfile warmUpProfile;
+
+    private volatile boolean wovenClassCacheEnabled;
+
+    /**
+     * The results of {@link #getResource(String)}.
+     */
+    private final ResourceLookupCache resourceLookupCache = new ResourceLookupCache();
+
+    /**
+     * The results of {@link #getResources(String)}.
+     */
+    private final ResourceLookupCache resourcesLookupCache = new ResourceLookupCache();
+
+    private final ClassLoadingStatisticsRecorder statisticsRecorder = new ClassLoadingStatisticsRecorder();
+
+    private final WebappReferenceCleaner referenceCleaner;
+
+    private volatile BundleClassPathIndex bundleClassPathIndex;
+
+    private final Object bundleClassPathIndexMonitor = new Object();
+
+    /**
+     * The classes of the web application bundle which have been loaded through this class loader, recorded only when
+     * their static fields have to be cleared.
+     */
+    private final Set<Class<?>> loadedClasses = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    private volatile boolean clearReferencesStatic = false;
+
+    private volatile boolean clearReferencesStopThreads = false;
+
+    private volatile boolean clearReferencesStopTimerThreads = false;
+
+    private volatile boolean clearReferencesHttpClientKeepAliveThread = true;
+
+    private volatile boolean clearReferencesThreadContextClassLoaders = false;
+
+    private volatile boolean clearReferencesThreadLocals = false;
+
     // ------------------------------------------------------------------------
     // --- Constructors
     // ------------------------------------------------------------------------
@@ -70,6 +122,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
         super(new URL[0], BundleWebappClassLoader.class.getClassLoader().getParent());
         this.bundle = bundle;
         this.classLoaderCustomizer = classLoaderCustomizer;
+        this.referenceCleaner = new WebappReferenceCleaner(this, bundle);
 
         addBundleClassPathURLs(bundle);
 
@@ -110,13 +163,164 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
     // -------------------------------------------------------------------------
 
     public void addTransformer(ClassFileTransformer transformer) {
+        if (this.wovenClassCacheEnabled) {
+            transformer = new CachingClassFileTransformer(transformer, this.bundle);
+        }
         this.classLoaderCustomizer.addClassFileTransformer(transformer, this.bundle);
     }
 
+    public boolean isWovenClassCacheEnabled() {
+        return this.wovenClassCacheEnabled;
+    }
+
+    /**
+     * Enables or disables the on-disk cache of the classes transformed by the transformers which are added
+     * afterwards.
+     *
+     * @param wovenClassCacheEnabled <code>true</code> if transformed classes should be cached
+     */
+    public void setWovenClassCacheEnabled(boolean wovenClassCacheEnabled) {
+        this.wovenClassCacheEnabled = wovenClassCacheEnabled;
+    }
+
     public ClassLoader getThrowawayClassLoader() {
         return this.classLoaderCustomizer.createThrowawayClassLoader(this.bundle);
     }
 
+    // -------------------------------------------------------------------------
+    // --- Lookup caches
+    // -------------------------------------------------------------------------
+
+    /**
+     * Forgets the classes which could not be loaded and the resources which have been looked up. Called when bundles
+     * have been resolved or class loader customizers have changed.
+     */
+    void clearLookupCaches() {
+        this.bundleDelegatingClassLoader.clearNegativeLookupCache();
+        this.resourceLookupCache.clear();
+        this.resourcesLookupCache.clear();
+    }
+
+    public long getResourceLookupCacheHitCount() {
+        return this.resourceLookupCache.getHitCount() + this.resourcesLookupCache.getHitCount();
+    }
+
+    public long getResourceLookupCacheMissCount() {
+        return this.resourceLookupCache.getMissCount() + this.resourcesLookupCache.getMissCount();
+    }
+
+    public int getResourceLookupCacheSize() {
+        return this.resourceLookupCache.getSize() + this.resourcesLookupCache.getSize();
+    }
+
+    public int getResourceLookupCacheMaxSize() {
+        return this.resourceLookupCache.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of resource names for which the result of {@link #getResource(String)} and of
+     * {@link #getResources(String)} is cached. A value less than or equal to zero disables the cache.
+     *
+     * @param resourceLookupCacheMaxSize the maximum number of cached names
+     */
+    public void setResourceLookupCacheMaxSize(int resourceLookupCacheMaxSize) {
+        this.resourceLookupCache.setMaxSize(resourceLookupCacheMaxSize);
+        this.resourcesLookupCache.setMaxSize(resourceLookupCacheMaxSize);
+    }
+
+    /**
+     * Returns the index of the entries of the JARs on the Bundle-ClassPath, which is created on first use.
+     */
+    BundleClassPathIndex getBundleClassPathIndex() {
+        BundleClassPathIndex index = this.bundleClassPathIndex;
+        if (index == null) {
+            synchronized (this.bundleClassPathIndexMonitor) {
+                index = this.bundleClassPathIndex;
+                if (index == null) {
+                    index = BundleClassPathIndex.create(this.bundle);
+                    this.bundleClassPathIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    ChainedClassLoader getBundleDelegatingClassLoader() {
+        return this.bundleDelegatingClassLoader;
+    }
+
+    public long getNegativeLookupCacheHitCount() {
+        return this.bundleDelegatingClassLoader.getNegativeLookupCacheHitCount();
+    }
+
+    public long getNegativeLookupCacheMissCount() {
+        return this.bundleDelegatingClassLoader.getNegativeLookupCacheMissCount();
+    }
+
+    public int getNegativeLookupCacheSize() {
+        return this.bundleDelegatingClassLoader.getNegativeLookupCacheSize();
+    }
+
+    public int getNegativeLookupCacheMaxSize() {
+        return this.bundleDelegatingClassLoader.getNegativeLookupCacheMaxSize();
+    }
+
+    public void setNegativeLookupCacheMaxSize(int negativeLookupCacheMaxSize) {
+        this.bundleDelegatingClassLoader.setNegativeLookupCacheMaxSize(negativeLookupCacheMaxSize);
+    }
+
+    // -------------------------------------------------------------------------
+    // --- Statistics
+    // -------------------------------------------------------------------------
+
+    /**
+     * Takes a snapshot of the class loading statistics of this class loader.
+     *
+     * @return the snapshot
+     */
+    public ClassLoadingStatistics getClassLoadingStatistics() {
+        return this.statisticsRecorder.snapshot(this.bundleDelegatingClassLoader.getDelegateMissCounts());
+    }
+
+    public long getLoadClassCount() {
+        return getClassLoadingStatistics().getLoadClassCount();
+    }
+
+    public long getLoadClassTime() {
+        return getClassLoadingStatistics().getLoadClassTime();
+    }
+
+    public long getClassNotFoundCount() {
+        return getClassLoadingStatistics().getClassNotFoundCount();
+    }
+
+    public long getResourceLookupCount() {
+        return getClassLoadingStatistics().getResourceLookupCount();
+    }
+
+    public String[] getDelegateMissCounts() {
+        Map<String, Long> delegateMissCounts = this.bundleDelegatingClassLoader.getDelegateMissCounts();
+        String[] result = new String[delegateMissCounts.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> delegateMissCount : delegateMissCounts.entrySet()) {
+            result[i++] = delegateMissCount.getKey() + "=" + delegateMissCount.getValue();
+        }
+        return result;
+    }
+
+    public String[] getSlowestClassLoads() {
+        List<String> slowestClassLoads = getClassLoadingStatistics().getSlowestClassLoads();
+        return slowestClassLoads.toArray(new String[slowestClassLoads.size()]);
+    }
+
+    // -------------------------------------------------------------------------
+    // --- Warm-up
+    // -------------------------------------------------------------------------
+
+    void setWarmUpProfile(WarmUpProfile warmUpProfile) {
+        this.warmUpProfile = warmUpProfile;
+    }
+
     // -------------------------------------------------------------------------
     // --- Lifecycle
     // -------------------------------------------------------------------------
@@ -188,6 +392,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
         // Clearing references should be done before setting started to
         // false, due to possible side effects
         clearReferences();
+        clearLookupCaches();
 
         this.started = false;
     }
@@ -215,13 +420,26 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
             this.log.debug("getResource(" + name + ")");
         }
 
+        this.statisticsRecorder.recordResourceLookup();
+
+        List<URL> cachedUrls = this.resourceLookupCache.get(name);
+        if (cachedUrls != null) {
+            return cachedUrls.isEmpty() ? null : cachedUrls.get(0);
+        }
+
         URL url = null;
 
         url = this.bundleDelegatingClassLoader.getResource(name);
+        if (url == null) {
+            url = findResource(name);
+        }
         if (url != null) {
+            this.resourceLookupCache.put(name, Collections.singletonList(url));
             return url;
         }
 
+        this.resourceLookupCache.put(name, Collections.<URL> emptyList());
+
         // Resource was not found
         if (this.log.isDebugEnabled()) {
             this.log.debug("Resource not found, returning null.");
@@ -232,7 +450,12 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
 
     @Override
     public InputStream getResourceAsStream(String name) {
-        return this.bundleDelegatingClassLoader.getResourceAsStream(name);
+        URL url = getResource(name);
+        try {
+            return url != null ? url.openStream() : null;
+        } catch (IOException e) {
+            return null;
+        }
     }
 
     /**
@@ -244,7 +467,37 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
             this.log.debug("getResources(" + name + ")");
         }
 
-        return this.bundleDelegatingClassLoader.getResources(name);
+        this.statisticsRecorder.recordResourceLookup();
+
+        List<URL> cachedUrls = this.resourcesLookupCache.get(name);
+        if (cachedUrls == null) {
+            cachedUrls = Collections.list(this.bundleDelegatingClassLoader.getResources(name));
+            if (cachedUrls.isEmpty()) {
+                cachedUrls = getBundleClassPathIndex().findResources(name);
+            }
+            this.resourcesLookupCache.put(name, cachedUrls);
+        }
+        return Collections.enumeration(cachedUrls);
+    }
+
+    /**
+     * Finds the resource in the JARs on the Bundle-ClassPath using the {@link BundleClassPathIndex} rather than by
+     * probing each JAR. {@link #getResource(String)} and {@link #getResources(String)} fall back to the index when the
+     * class loader chain does not find the resource, e.g. because the bundle cannot be resolved and the framework
+     * therefore does not search its Bundle-ClassPath.
+     */
+    @Override
+    public URL findResource(String name) {
+        return getBundleClassPathIndex().findResource(name);
+    }
+
+    /**
+     * Finds the resources in the JARs on the Bundle-ClassPath using the {@link BundleClassPathIndex} rather than by
+     * probing each JAR.
+     */
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        return Collections.enumeration(getBundleClassPathIndex().findResources(name));
     }
 
     /**
@@ -284,35 +537,46 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
             }
         }
 
-        // Check our previously loaded class cache
-        clazz = findLoadedClass(name);
-        if (clazz != null) {
-            if (this.log.isDebugEnabled()) {
-                this.log.debug("Returning class from cache.");
-            }
-            if (resolve) {
-                resolveClass(clazz);
-            }
-            return clazz;
-        }
-
-        // Search the application's bundle
-        if (this.log.isDebugEnabled()) {
-            this.log.debug("Searching the application's bundle.");
-        }
-        try {
-            clazz = this.bundleDelegatingClassLoader.loadClass(name);
+        synchronized (getClassLoadingLock(name)) {
+            // Check our previously loaded class cache
+            clazz = findLoadedClass(name);
             if (clazz != null) {
                 if (this.log.isDebugEnabled()) {
-                    this.log.debug("Loading class from the delegating classloader.");
+                    this.log.debug("Returning class from cache.");
                 }
                 if (resolve) {
                     resolveClass(clazz);
                 }
                 return clazz;
             }
-        } catch (ClassNotFoundException e) {
-            /* no-op */
+
+            // Search the application's bundle
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("Searching the application's bundle.");
+            }
+            long start = System.nanoTime();
+            try {
+                clazz = this.bundleDelegatingClassLoader.loadClass(name);
+                this.statisticsRecorder.recordLoadClass(name, System.nanoTime() - start, clazz != null);
+                if (clazz != null) {
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug("Loading class from the delegating classloader.");
+                    }
+                    WarmUpProfile profile = this.warmUpProfile;
+                    if (profile != null) {
+                        profile.recordClass(name);
+                    }
+                    if (this.clearReferencesStatic && this.referenceCleaner.isLoadedByWebApplication(clazz)) {
+                        this.loadedClasses.add(clazz);
+                    }
+                    if (resolve) {
+                        resolveClass(clazz);
+                    }
+                    return clazz;
+                }
+            } catch (ClassNotFoundException e) {
+                this.statisticsRecorder.recordLoadClass(name, System.nanoTime() - start, false);
+            }
         }
 
         throw new ClassNotFoundException(name);
@@ -326,14 +590,11 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * Clear references.
      */
     private void clearReferences() {
-        // TODO think about more references that have to be cleared
-        // Bug 345938 - BundleWebappClassLoader.clearReferences() - extend current functionality
-
-        // Unregister any JDBC drivers loaded by this classloader
+        // Unregister any JDBC drivers loaded by the web application
         Enumeration<Driver> drivers = DriverManager.getDrivers();
         while (drivers.hasMoreElements()) {
             Driver driver = drivers.nextElement();
-            if (driver.getClass().getClassLoader() == this) {
+            if (this.referenceCleaner.isLoadedByWebApplication(driver)) {
                 try {
                     DriverManager.deregisterDriver(driver);
                 } catch (SQLException e) {
@@ -342,7 +603,17 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
             }
         }
 
-        // XXX Determine if we need to null out static or final fields from loaded classes as in WebappClassLoader
+        // Stop any threads the web application started
+        this.referenceCleaner.clearReferencesThreads(this.clearReferencesStopThreads, this.clearReferencesStopTimerThreads,
+            this.clearReferencesHttpClientKeepAliveThread, this.clearReferencesThreadContextClassLoaders);
+
+        // Check for leaks triggered by ThreadLocals loaded by the web application
+        if (this.clearReferencesThreadLocals) {
+            this.referenceCleaner.checkThreadLocalsForLeaks();
+        }
+
+        // The static fields of the loaded classes are cleared by the loader once the bundle revision is no longer used
+        this.loadedClasses.clear();
 
         // Clear the IntrospectionUtils cache.
         IntrospectionUtils.clear();
@@ -360,12 +631,26 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
     }
 
     /**
-     * Set the clearReferencesStatic feature for this Context.
+     * Returns the classes of the web application bundle which have been loaded through this class loader and forgets
+     * them.
+     *
+     * @return the loaded classes, empty unless the clearReferencesStatic feature is enabled
+     */
+    List<Class<?>> takeLoadedClasses() {
+        List<Class<?>> classes = new ArrayList<>(this.loadedClasses);
+        this.loadedClasses.clear();
+        return classes;
+    }
+
+    /**
+     * Set the clearReferencesStatic feature for this Context. The classes of the web application bundle are not
+     * reloaded when the bundle is started again, unless it has been updated or refreshed, so their static fields are
+     * cleared only when the bundle is updated, unresolved or uninstalled after the web application has been stopped.
      *
      * @param clearReferencesStatic The new flag value
      */
     public void setClearReferencesStatic(boolean clearReferencesStatic) {
-        // no-op
+        this.clearReferencesStatic = clearReferencesStatic;
     }
 
     /**
@@ -374,7 +659,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * @param clearReferencesStopThreads The new flag value
      */
     public void setClearReferencesStopThreads(boolean clearReferencesStopThreads) {
-        // no-op
+        this.clearReferencesStopThreads = clearReferencesStopThreads;
     }
 
     /**
@@ -383,7 +668,7 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * @param clearReferencesStopTimerThreads The new flag value
      */
     public void setClearReferencesStopTimerThreads(boolean clearReferencesStopTimerThreads) {
-        // no-op
+        this.clearReferencesStopTimerThreads = clearReferencesStopTimerThreads;
     }
 
     /**
@@ -392,6 +677,26 @@ public class BundleWebappClassLoader extends URLClassLoader implements Lifecycle
      * @param clearReferencesHttpClientKeepAliveThread The new flag value
      */
     public void setClearReferencesHttpClientKeepAliveThread(boolean clearReferencesHttpClientKeepAliveThread) {
-        // no-op
+        this.clearReferencesHttpClientKeepAliveThread = clearReferencesHttpClientKeepAliveThread;
+    }
+
+    /**
+     * Set whether the thread context class loader of threads of other bundles, which inherited the class loader of the
+     * web application, is reset when the web application is stopped. Otherwise such threads are only reported.
+     *
+     * @param clearReferencesThreadContextClassLoaders The new flag value
+     */
+    public void setClearReferencesThreadContextClassLoaders(boolean clearReferencesThreadContextClassLoaders) {
+        this.clearReferencesThreadContextClassLoaders = clearReferencesThreadContextClassLoaders;
+    }
+
+    /**
+     * Set whether the thread locals of all threads are checked for values of the web application when the web
+     * application is stopped. The values of the current thread are removed, the others are reported.
+     *
+     * @param clearReferencesThreadLocals The new flag value
+     */
+    public void setClearReferencesThreadLocals(boolean clearReferencesThreadLocals) {
+        this.clearReferencesThreadLocals = clearReferencesThreadLocals;
     }
 }
@@ -16,6 +16,9 @@
 
 package org.eclipse.gemini.web.tomcat.internal.loader;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.servlet.ServletContext;
@@ -24,10 +27,14 @@ import org.apache.catalina.Context;
 import org.apache.catalina.Globals;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.LifecycleState;
+import org.apache.catalina.core.StandardContext;
 import org.apache.tomcat.util.ExceptionUtils;
 import org.apache.tomcat.util.modeler.Registry;
+import org.eclipse.gemini.web.tomcat.internal.support.WarmUpProfile;
 import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +62,26 @@ public class BundleWebappLoader extends BaseWebappLoader {
      */
     private BundleWebappClassLoader classLoader = null;
 
+    private volatile WarmUpProfile warmUpProfile;
+
+    private volatile boolean wovenClassCacheEnabled;
+
+    private volatile boolean clearReferencesThreadContextClassLoaders;
+
+    private volatile boolean clearReferencesThreadLocals;
+
+    private volatile ClassLoaderLeakDetector leakDetector;
+
+    private volatile List<String> preloadClasses = Collections.emptyList();
+
+    private volatile ClassPreloader classPreloader;
+
+    private volatile long preloadTimeout = ClassPreloader.DEFAULT_TIMEOUT;
+
+    private LookupCacheInvalidator lookupCacheInvalidator;
+
+    private volatile BundleContext bundleContext;
+
     // -------------------------------------------------------------------------
     // --- Constructors
     // -------------------------------------------------------------------------
@@ -65,6 +92,109 @@ public class BundleWebappLoader extends BaseWebappLoader {
         this.classLoaderCustomizer = classLoaderCustomizer;
     }
 
+    /**
+     * Sets the profile in which the loaded classes are recorded. The classes recorded in the previous run are loaded in
+     * the background when the loader is started.
+     *
+     * @param warmUpProfile the profile or <code>null</code> if no profile should be recorded
+     */
+    public void setWarmUpProfile(WarmUpProfile warmUpProfile) {
+        this.warmUpProfile = warmUpProfile;
+    }
+
+    /**
+     * Enables or disables the on-disk cache of the classes transformed by the class file transformers of the web
+     * application. Takes effect when the loader is started.
+     *
+     * @param wovenClassCacheEnabled <code>true</code> if transformed classes should be cached
+     */
+    public void setWovenClassCacheEnabled(boolean wovenClassCacheEnabled) {
+        this.wovenClassCacheEnabled = wovenClassCacheEnabled;
+    }
+
+    /**
+     * Enables or disables resetting the thread context class loader of threads of other bundles which inherited the
+     * class loader of the web application. Takes effect when the loader is started.
+     *
+     * @param clearReferencesThreadContextClassLoaders <code>true</code> if the context class loaders should be reset
+     */
+    public void setClearReferencesThreadContextClassLoaders(boolean clearReferencesThreadContextClassLoaders) {
+        this.clearReferencesThreadContextClassLoaders = clearReferencesThreadContextClassLoaders;
+    }
+
+    /**
+     * Enables or disables checking the thread locals of all threads for values of the web application when the loader
+     * is stopped. Takes effect when the loader is started.
+     *
+     * @param clearReferencesThreadLocals <code>true</code> if the thread locals should be checked
+     */
+    public void setClearReferencesThreadLocals(boolean clearReferencesThreadLocals) {
+        this.clearReferencesThreadLocals = clearReferencesThreadLocals;
+    }
+
+    /**
+     * Sets the classes which are loaded and linked in parallel when the loader is started. The patterns are
+     * <code>*</code> for all classes in <code>WEB-INF/classes</code> and in the JARs on the Bundle-ClassPath,
+     * <code>&lt;package&gt;.*</code> for the classes of a package and its subpackages or the name of a class.
+     *
+     * @param preloadClasses comma separated list of patterns or <code>null</code> if no class should be preloaded
+     */
+    public void setPreloadClasses(String preloadClasses) {
+        this.preloadClasses = ClassPreloader.parsePatterns(preloadClasses);
+    }
+
+    /**
+     * Sets the maximum time to wait for the classes to be preloaded, after which the preloading is stopped.
+     *
+     * @param preloadTimeout the timeout in milliseconds
+     */
+    public void setPreloadTimeout(long preloadTimeout) {
+        this.preloadTimeout = preloadTimeout;
+    }
+
+    /**
+     * Starts preloading the classes. Called once the listeners and the servlets of the context have been started, so
+     * that the class file transformers which they register are applied to the preloaded classes.
+     */
+    public void startPreload() {
+        ClassPreloader preloader = this.classPreloader;
+        if (preloader != null) {
+            preloader.start();
+        }
+    }
+
+    /**
+     * Waits until the classes which are being preloaded have been loaded. Must not be called while holding the monitor
+     * of the context, so that the context can be stopped in the meantime.
+     */
+    public void awaitPreload() {
+        ClassPreloader preloader = this.classPreloader;
+        if (preloader != null) {
+            preloader.await(this.preloadTimeout);
+            this.classPreloader = null;
+        }
+    }
+
+    /**
+     * Sets the detector which watches the class loader after this loader has been stopped.
+     *
+     * @param leakDetector the detector or <code>null</code> if class loader leaks should not be detected
+     */
+    public void setLeakDetector(ClassLoaderLeakDetector leakDetector) {
+        this.leakDetector = leakDetector;
+    }
+
+    /**
+     * Sets the context through which bundle and class loader customizer changes are watched to clear the lookup caches
+     * of the class loader. The context of the web application bundle itself cannot be used as it is no longer valid
+     * once the bundle is updated or refreshed.
+     *
+     * @param bundleContext the context or <code>null</code> if the lookup caches should not be cleared on changes
+     */
+    public void setBundleContext(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
     // -------------------------------------------------------------------------
     // --- OsgiWebappLoader-specific implementation
     // -------------------------------------------------------------------------
@@ -131,8 +261,16 @@ public class BundleWebappLoader extends BaseWebappLoader {
         try {
 
             this.classLoader = createClassLoader();
+            this.classLoader.setWarmUpProfile(this.warmUpProfile);
+            this.classLoader.setWovenClassCacheEnabled(this.wovenClassCacheEnabled);
+            configureClearReferences();
             this.classLoader.start();
 
+            if (!this.preloadClasses.isEmpty()) {
+                this.classPreloader = new ClassPreloader(this.bundle, this.classLoader, this.preloadClasses);
+            }
+
+            addLookupCacheInvalidator();
             registerClassLoaderMBean();
 
         } catch (Throwable t) {
@@ -143,6 +281,8 @@ public class BundleWebappLoader extends BaseWebappLoader {
         }
 
         setState(LifecycleState.STARTING);
+
+        warmUp();
     }
 
     /**
@@ -160,6 +300,15 @@ public class BundleWebappLoader extends BaseWebappLoader {
         ServletContext servletContext = getContext().getServletContext();
         servletContext.removeAttribute(Globals.CLASS_PATH_ATTR);
 
+        removeLookupCacheInvalidator();
+        addStaticReferencesCleaner();
+
+        ClassPreloader preloader = this.classPreloader;
+        if (preloader != null) {
+            preloader.stop();
+            this.classPreloader = null;
+        }
+
         // Throw away our current class loader
         try {
             this.classLoader.stop();
@@ -169,11 +318,88 @@ public class BundleWebappLoader extends BaseWebappLoader {
 
         unregisterClassLoaderMBean();
 
+        ClassLoaderLeakDetector detector = this.leakDetector;
+        if (detector != null) {
+            detector.watch(this.classLoader, getContext().getPath());
+        }
+
         this.classLoader = null;
         this.bundle = null;
         this.classLoaderCustomizer = null;
     }
 
+    /**
+     * Applies the reference clearing options of the context, which can be configured per web application in its
+     * <code>META-INF/context.xml</code>, and those of the loader.
+     */
+    private void configureClearReferences() {
+        this.classLoader.setClearReferencesThreadContextClassLoaders(this.clearReferencesThreadContextClassLoaders);
+        this.classLoader.setClearReferencesThreadLocals(this.clearReferencesThreadLocals);
+
+        Context context = getContext();
+        if (context instanceof StandardContext) {
+            StandardContext standardContext = (StandardContext) context;
+            this.classLoader.setClearReferencesStatic(standardContext.getClearReferencesStatic());
+            this.classLoader.setClearReferencesStopThreads(standardContext.getClearReferencesStopThreads());
+            this.classLoader.setClearReferencesStopTimerThreads(standardContext.getClearReferencesStopTimerThreads());
+            this.classLoader.setClearReferencesHttpClientKeepAliveThread(standardContext.getClearReferencesHttpClientKeepAliveThread());
+        }
+    }
+
+    private void warmUp() {
+        WarmUpProfile profile = this.warmUpProfile;
+        if (profile == null || profile.getClasses().isEmpty()) {
+            return;
+        }
+
+        final List<String> classNames = profile.getClasses();
+        final ClassLoader loader = this.classLoader;
+        profile.warmUp("Warm-up classes [" + this.bundle.getSymbolicName() + "]", new Runnable() {
+
+            @Override
+            public void run() {
+                for (String className : classNames) {
+                    if (!getState().isAvailable()) {
+                        return;
+                    }
+                    try {
+                        // Load without initializing, static initializers must run on first use only
+                        Class.forName(className, false, loader);
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        BundleWebappLoader.this.log.debug("Unable to prefetch class [" + className + "].", e);
+                    }
+                }
+            }
+        });
+    }
+
+    private void addLookupCacheInvalidator() throws InvalidSyntaxException {
+        BundleContext context = this.bundleContext;
+        if (context != null) {
+            this.lookupCacheInvalidator = new LookupCacheInvalidator(this.classLoader);
+            this.lookupCacheInvalidator.register(context);
+        }
+    }
+
+    /**
+     * Clears the static fields of the classes of the web application once the bundle revision which defined them is no
+     * longer used. The fields are not cleared if no context is available to watch the bundle.
+     */
+    private void addStaticReferencesCleaner() {
+        List<Class<?>> classes = this.classLoader.takeLoadedClasses();
+        BundleContext context = this.bundleContext;
+        if (!classes.isEmpty() && context != null) {
+            new StaticReferencesCleaner(this.bundle, classes).register(context);
+        }
+    }
+
+    private void removeLookupCacheInvalidator() {
+        if (this.lookupCacheInvalidator != null) {
+            this.lookupCacheInvalidator.unregister();
+            this.lookupCacheInvalidator = null;
+        }
+    }
+
     private void registerClassLoaderMBean() throws MalformedObjectNameException, Exception {
         ObjectName classLoaderObjectName = createClassLoaderObjectName(getContext());
         Registry.getRegistry(null, null).registerComponent(this.classLoader, classLoaderObjectName, null);
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ClassFileTransformer} which stores the classes transformed by another transformer on disk, so that identical
+ * classes do not have to be transformed again when the web application is started the next time.
+ * <p />
+ * A transformed class is keyed by the hash of the original class bytes and by the identity of the transformer, i.e.
+ * its class and the revision of the bundle which provides it. The cache lives in the directory of the current
+ * revision of the web application bundle and is discarded when the bundle is updated. Classes which the transformer
+ * leaves unchanged are recorded as empty files.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class CachingClassFileTransformer implements ClassFileTransformer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingClassFileTransformer.class);
+
+    private static final String CACHE_DIRECTORY = "woven";
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final byte[] UNCHANGED = new byte[0];
+
+    private final ClassFileTransformer transformer;
+
+    private final File cacheDirectory;
+
+    CachingClassFileTransformer(ClassFileTransformer transformer, Bundle bundle) {
+        this.transformer = transformer;
+        this.cacheDirectory = new File(new File(BundleEntryExtractor.getRevisionDirectory(bundle), CACHE_DIRECTORY),
+            getTransformerIdentity(transformer));
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain,
+        byte[] classfileBuffer) throws IllegalClassFormatException {
+        if (classBeingRedefined != null || className == null) {
+            return this.transformer.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+        }
+
+        File cachedClass = new File(this.cacheDirectory, className + "-" + hash(classfileBuffer) + CLASS_FILE_EXTENSION);
+        if (cachedClass.isFile()) {
+            try {
+                byte[] transformed = Files.readAllBytes(cachedClass.toPath());
+                return transformed.length > 0 ? transformed : null;
+            } catch (IOException e) {
+                LOGGER.debug("Unable to read the cached transformation of class [" + className + "].", e);
+            }
+        }
+
+        byte[] transformed = this.transformer.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+        try {
+            BundleEntryExtractor.store(new ByteArrayInputStream(transformed != null ? transformed : UNCHANGED), cachedClass, false);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to cache the transformation of class [" + className + "].", e);
+        }
+        return transformed;
+    }
+
+    private static String getTransformerIdentity(ClassFileTransformer transformer) {
+        StringBuilder identity = new StringBuilder(transformer.getClass().getName());
+        ClassLoader transformerLoader = transformer.getClass().getClassLoader();
+        if (transformerLoader instanceof BundleReference) {
+            Bundle transformerBundle = ((BundleReference) transformerLoader).getBundle();
+            if (transformerBundle != null) {
+                identity.append('-').append(transformerBundle.getBundleId()).append('-').append(transformerBundle.getLastModified());
+            }
+        }
+        return identity.toString();
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(bytes);
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform has to support " + DIGEST_ALGORITHM + ".", e);
+        }
+    }
+}
@@ -25,23 +25,41 @@ import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleReference;
 
 /**
+ * Class loader which delegates to a list of class loaders in order. The class names which a delegate failed to load
+ * are remembered per delegate, so that repeated lookups of missing classes do not search that delegate again until
+ * {@link #clearNegativeLookupCache()} is called.
+ * <p />
+ *
  * <strong>Concurrent Semantics</strong><br />
  *
- * This class is immutable and therefore thread safe.
+ * This class is thread safe.
  */
 public final class ChainedClassLoader extends ClassLoader implements BundleReference {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     /** list of loaders */
     private final List<ClassLoader> loaders;
 
+    /** the class names which the loader with the same index failed to load */
+    private final NegativeLookupCache[] negativeLookupCaches;
+
+    /** the number of classes which the loader with the same index failed to load */
+    private final AtomicLongArray missCounts;
+
     private Bundle bundle;
 
     /**
@@ -62,6 +80,12 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
         }
 
         this.loaders = Collections.unmodifiableList(l);
+
+        this.negativeLookupCaches = new NegativeLookupCache[l.size()];
+        for (int i = 0; i < this.negativeLookupCaches.length; i++) {
+            this.negativeLookupCaches[i] = new NegativeLookupCache();
+        }
+        this.missCounts = new AtomicLongArray(l.size());
     }
 
     public static ChainedClassLoader create(final ClassLoader... loaders) {
@@ -116,19 +140,41 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
     }
 
     private Enumeration<URL> doGetResources(String name) throws IOException {
-        Map<String, URL> urls = new HashMap<>();
+        Enumeration<URL> firstResources = null;
+        List<URL> urls = null;
+        Set<String> externalForms = null;
         for (ClassLoader loader : this.loaders) {
             Enumeration<URL> resources = loader.getResources(name);
-            if (resources != null) {
-                while (resources.hasMoreElements()) {
-                    URL url = resources.nextElement();
-                    // We use Map structure and not Set structure, because
-                    // URL#toExternalForm() perform better than URL#equals()
-                    urls.put(url.toExternalForm(), url);
-                }
+            if (resources == null || !resources.hasMoreElements()) {
+                continue;
+            }
+            if (firstResources == null) {
+                // In the common case only one loader has the resource and its result can be returned as it is
+                firstResources = resources;
+                continue;
+            }
+            if (urls == null) {
+                urls = new ArrayList<>();
+                externalForms = new HashSet<>();
+                addResources(firstResources, urls, externalForms);
+            }
+            addResources(resources, urls, externalForms);
+        }
+
+        if (urls != null) {
+            return Collections.enumeration(urls);
+        }
+        return firstResources != null ? firstResources : Collections.<URL> emptyEnumeration();
+    }
+
+    private static void addResources(Enumeration<URL> resources, List<URL> urls, Set<String> externalForms) {
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            // URL#toExternalForm() performs better than URL#equals()
+            if (externalForms.add(url.toExternalForm())) {
+                urls.add(url);
             }
         }
-        return Collections.enumeration(urls.values());
     }
 
     private URL doGetResource(String name) {
@@ -163,21 +209,99 @@ public final class ChainedClassLoader extends ClassLoader implements BundleRefer
     }
 
     private Class<?> doLoadClass(String name) throws ClassNotFoundException {
-        Class<?> clazz = null;
-
+        // The delegates are always searched in order, as a package may be split across them. Repeated misses in the
+        // earlier delegates are answered by the negative lookup caches.
         for (int i = 0; i < this.loaders.size(); i++) {
-            ClassLoader loader = this.loaders.get(i);
-            try {
-                clazz = loader.loadClass(name);
+            Class<?> clazz = doLoadClass(i, name);
+            if (clazz != null) {
                 return clazz;
-            } catch (ClassNotFoundException e) {
-                // keep moving through the class loaders
             }
         }
 
         throw new ClassNotFoundException(name);
     }
 
+    private Class<?> doLoadClass(int index, String name) {
+        NegativeLookupCache negativeLookupCache = this.negativeLookupCaches[index];
+        if (negativeLookupCache.contains(name)) {
+            this.missCounts.incrementAndGet(index);
+            return null;
+        }
+
+        try {
+            return this.loaders.get(index).loadClass(name);
+        } catch (ClassNotFoundException e) {
+            // keep moving through the class loaders
+            negativeLookupCache.add(name);
+            this.missCounts.incrementAndGet(index);
+            return null;
+        }
+    }
+
+    /**
+     * Forgets the classes which the delegates failed to load. Has to be called when the delegates could find classes
+     * which they have not found before, e.g. after bundles have been resolved.
+     */
+    public void clearNegativeLookupCache() {
+        for (NegativeLookupCache negativeLookupCache : this.negativeLookupCaches) {
+            negativeLookupCache.clear();
+        }
+    }
+
+    public long getNegativeLookupCacheHitCount() {
+        long hitCount = 0;
+        for (NegativeLookupCache negativeLookupCache : this.negativeLookupCaches) {
+            hitCount += negativeLookupCache.getHitCount();
+        }
+        return hitCount;
+    }
+
+    public long getNegativeLookupCacheMissCount() {
+        long missCount = 0;
+        for (NegativeLookupCache negativeLookupCache : this.negativeLookupCaches) {
+            missCount += negativeLookupCache.getMissCount();
+        }
+        return missCount;
+    }
+
+    public int getNegativeLookupCacheSize() {
+        int size = 0;
+        for (NegativeLookupCache negativeLookupCache : this.negativeLookupCaches) {
+            size += negativeLookupCache.getSize();
+        }
+        return size;
+    }
+
+    public int getNegativeLookupCacheMaxSize() {
+        return this.negativeLookupCaches.length > 0 ? this.negativeLookupCaches[0].getMaxSize() : NegativeLookupCache.DEFAULT_MAX_SIZE;
+    }
+
+    /**
+     * Sets the maximum number of missing class names remembered per delegate. A value less than or equal to zero
+     * disables the cache.
+     *
+     * @param maxSize the maximum number of class names per delegate
+     */
+    public void setNegativeLookupCacheMaxSize(int maxSize) {
+        for (NegativeLookupCache negativeLookupCache : this.negativeLookupCaches) {
+            negativeLookupCache.setMaxSize(maxSize);
+        }
+    }
+
+    /**
+     * Returns the number of classes which each delegate failed to load, including the misses answered by the negative
+     * lookup cache.
+     *
+     * @return the miss counts keyed by <code>&lt;index&gt;: &lt;delegate&gt;</code>, in the order of the delegates
+     */
+    public Map<String, Long> getDelegateMissCounts() {
+        Map<String, Long> missCounts = new LinkedHashMap<>();
+        for (int i = 0; i < this.loaders.size(); i++) {
+            missCounts.put(i + ": " + this.loaders.get(i), this.missCounts.get(i));
+        }
+        return missCounts;
+    }
+
     @Override
     public Bundle getBundle() {
         return this.bundle;
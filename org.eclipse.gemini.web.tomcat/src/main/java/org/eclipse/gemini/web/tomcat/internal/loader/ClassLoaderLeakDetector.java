@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Monitors the class loaders of stopped web applications. The class loaders are referenced weakly, a class loader
+ * which has not been collected after a number of garbage collections is reported as leaked and, optionally, a heap
+ * dump is written so that the paths from the GC roots to the class loader can be analysed.
+ * <p />
+ * Young collections do not unload classes, so a class loader is reported once it has survived the configured number of
+ * collections which can unload classes, i.e. collections of the old generation or of the whole heap and the concurrent
+ * cycles of G1. As G1 before Java 20 does not expose its concurrent cycles, a class loader is also reported once it
+ * has survived the configured number of collections of any kind and has been watched for at least
+ * {@link #MIN_LEAK_AGE} milliseconds.
+ * <p />
+ * The number of classes which the class loader had loaded is reported as an indication of the retained size, the
+ * actual retained size can only be determined from a heap dump.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+public final class ClassLoaderLeakDetector {
+
+    public static final int DEFAULT_GC_CYCLES = 10;
+
+    static final long CHECK_INTERVAL = 10000L;
+
+    static final long MIN_LEAK_AGE = 600000L;
+
+    private static final String HOT_SPOT_DIAGNOSTIC_OBJECT_NAME = "com.sun.management:type=HotSpotDiagnostic";
+
+    private static final String HEAP_DUMP_EXTENSION = ".hprof";
+
+    /**
+     * Parts of the names of the garbage collectors which can unload classes, e.g. <code>PS MarkSweep</code>,
+     * <code>MarkSweepCompact</code>, <code>ConcurrentMarkSweep</code>, <code>G1 Old Generation</code>,
+     * <code>G1 Concurrent GC</code>, <code>ZGC Major Cycles</code> and <code>Shenandoah Cycles</code>.
+     */
+    private static final List<String> OLD_GENERATION_COLLECTOR_NAMES = Arrays.asList("MarkSweep", "Old", "G1 Concurrent GC",
+        "ZGC Cycles", "ZGC Major Cycles", "Shenandoah Cycles");
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final List<WatchedClassLoader> watchedClassLoaders = new ArrayList<>();
+
+    private final Object monitor = new Object();
+
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private final File heapDumpDirectory;
+
+    private volatile int gcCycles = DEFAULT_GC_CYCLES;
+
+    private volatile boolean heapDumpOnLeak;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a detector.
+     *
+     * @param heapDumpDirectory the directory in which heap dumps are written or <code>null</code> if heap dumps are
+     *        not supported
+     */
+    public ClassLoaderLeakDetector(File heapDumpDirectory) {
+        this.heapDumpDirectory = heapDumpDirectory;
+    }
+
+    /**
+     * Starts checking the watched class loaders in the background.
+     */
+    public void start() {
+        synchronized (this.monitor) {
+            if (this.executor != null) {
+                return;
+            }
+            this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Web application class loader leak detector");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.executor.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    check();
+                }
+            }, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops checking and forgets the watched class loaders.
+     */
+    public void stop() {
+        synchronized (this.monitor) {
+            if (this.executor != null) {
+                this.executor.shutdownNow();
+                this.executor = null;
+            }
+            this.watchedClassLoaders.clear();
+        }
+    }
+
+    /**
+     * Starts watching the class loaders of a web application which has been stopped.
+     *
+     * @param classLoader the stopped class loader
+     * @param contextPath the context path of the web application
+     */
+    void watch(BundleWebappClassLoader classLoader, String contextPath) {
+        watch(classLoader, classLoader.getBundleDelegatingClassLoader(), String.valueOf(classLoader.getBundle()), contextPath,
+            classLoader.getLoadClassCount());
+    }
+
+    void watch(ClassLoader classLoader, ClassLoader chainedClassLoader, String bundle, String contextPath, long loadedClassCount) {
+        List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+        watch(classLoader, chainedClassLoader, bundle, contextPath, loadedClassCount, getGcCount(garbageCollectors, true),
+            getGcCount(garbageCollectors, false), System.currentTimeMillis());
+    }
+
+    void watch(ClassLoader classLoader, ClassLoader chainedClassLoader, String bundle, String contextPath, long loadedClassCount,
+        long oldGenerationGcCount, long gcCount, long time) {
+        WatchedClassLoader watchedClassLoader = new WatchedClassLoader(classLoader, chainedClassLoader, bundle, contextPath, loadedClassCount,
+            oldGenerationGcCount, gcCount, time);
+        synchronized (this.monitor) {
+            this.watchedClassLoaders.add(watchedClassLoader);
+        }
+    }
+
+    /**
+     * Forgets the collected class loaders and reports the class loaders which have survived the configured number of
+     * garbage collections.
+     */
+    void check() {
+        List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+        check(getGcCount(garbageCollectors, true), getGcCount(garbageCollectors, false), System.currentTimeMillis());
+    }
+
+    void check(long oldGenerationGcCount, long gcCount, long time) {
+        List<WatchedClassLoader> leaks = new ArrayList<>();
+        synchronized (this.monitor) {
+            Iterator<WatchedClassLoader> iterator = this.watchedClassLoaders.iterator();
+            while (iterator.hasNext()) {
+                WatchedClassLoader watchedClassLoader = iterator.next();
+                if (watchedClassLoader.isCollected()) {
+                    iterator.remove();
+                    this.log.debug("The class loaders of web application [" + watchedClassLoader.contextPath + "] have been collected.");
+                } else if (!watchedClassLoader.reported && isLeaked(watchedClassLoader, oldGenerationGcCount, gcCount, time)) {
+                    watchedClassLoader.reported = true;
+                    leaks.add(watchedClassLoader);
+                }
+            }
+        }
+
+        if (leaks.isEmpty()) {
+            return;
+        }
+
+        for (WatchedClassLoader leak : leaks) {
+            this.leakCount.incrementAndGet();
+            this.log.warn("The class loaders of web application [" + leak.contextPath + "] of bundle [" + leak.bundle + "], which had loaded ["
+                + leak.loadedClassCount + "] classes, have not been collected after [" + (gcCount - leak.gcCount)
+                + "] garbage collections in [" + (time - leak.time) / 1000 + "] seconds. This is very likely to be a memory leak.");
+        }
+
+        if (this.heapDumpOnLeak) {
+            dumpHeap();
+        }
+    }
+
+    /**
+     * Writes a heap dump of the live objects, which can be used to find the paths from the GC roots to the leaked class
+     * loaders.
+     *
+     * @return the heap dump file or <code>null</code> if the heap dump could not be written
+     */
+    public String dumpHeap() {
+        if (this.heapDumpDirectory == null) {
+            this.log.warn("Unable to write a heap dump as no heap dump directory is available.");
+            return null;
+        }
+
+        if (!this.heapDumpDirectory.isDirectory() && !this.heapDumpDirectory.mkdirs()) {
+            this.log.warn("Unable to create heap dump directory [" + this.heapDumpDirectory + "].");
+            return null;
+        }
+
+        File heapDump = new File(this.heapDumpDirectory, "leak-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + HEAP_DUMP_EXTENSION);
+        try {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            mbeanServer.invoke(new ObjectName(HOT_SPOT_DIAGNOSTIC_OBJECT_NAME), "dumpHeap", new Object[] { heapDump.getAbsolutePath(), true },
+                new String[] { String.class.getName(), boolean.class.getName() });
+            this.log.warn("Wrote heap dump [" + heapDump + "] for the analysis of leaked web application class loaders.");
+            return heapDump.getAbsolutePath();
+        } catch (Exception e) {
+            this.log.warn("Unable to write heap dump [" + heapDump + "].", e);
+            return null;
+        }
+    }
+
+    private boolean isLeaked(WatchedClassLoader watchedClassLoader, long oldGenerationGcCount, long gcCount, long time) {
+        if (watchedClassLoader.oldGenerationGcCount >= 0 && oldGenerationGcCount - watchedClassLoader.oldGenerationGcCount >= this.gcCycles) {
+            return true;
+        }
+        return gcCount - watchedClassLoader.gcCount >= this.gcCycles && time - watchedClassLoader.time >= MIN_LEAK_AGE;
+    }
+
+    /**
+     * @param oldGenerationOnly whether only the collectors which can unload classes are counted
+     * @return the number of collections or <code>-1</code> if no matching collector is known
+     */
+    static long getGcCount(List<GarbageCollectorMXBean> garbageCollectors, boolean oldGenerationOnly) {
+        long gcCount = -1;
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+            if (oldGenerationOnly && !isOldGenerationCollector(garbageCollector.getName())) {
+                continue;
+            }
+            long collectionCount = garbageCollector.getCollectionCount();
+            gcCount = Math.max(gcCount, 0) + Math.max(collectionCount, 0);
+        }
+        return gcCount;
+    }
+
+    /**
+     * Checks whether the garbage collector with the given name collects the old generation or the whole heap, so that
+     * its collections can unload classes.
+     */
+    static boolean isOldGenerationCollector(String name) {
+        for (String oldGenerationCollectorName : OLD_GENERATION_COLLECTOR_NAMES) {
+            if (name.contains(oldGenerationCollectorName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the leaked class loaders as <code>&lt;context path&gt; [&lt;bundle&gt;] &lt;loaded classes&gt;</code>
+     */
+    public String[] getLeakedClassLoaders() {
+        List<String> leakedClassLoaders = new ArrayList<>();
+        synchronized (this.monitor) {
+            for (WatchedClassLoader watchedClassLoader : this.watchedClassLoaders) {
+                if (watchedClassLoader.reported) {
+                    leakedClassLoaders.add(watchedClassLoader.contextPath + " [" + watchedClassLoader.bundle + "] loaded classes="
+                        + watchedClassLoader.loadedClassCount);
+                }
+            }
+        }
+        return leakedClassLoaders.toArray(new String[leakedClassLoaders.size()]);
+    }
+
+    public int getWatchedClassLoaderCount() {
+        synchronized (this.monitor) {
+            return this.watchedClassLoaders.size();
+        }
+    }
+
+    public long getLeakCount() {
+        return this.leakCount.get();
+    }
+
+    public int getGcCycles() {
+        return this.gcCycles;
+    }
+
+    /**
+     * Sets the number of garbage collections after which a class loader which has not been collected is reported.
+     *
+     * @param gcCycles the number of garbage collections
+     */
+    public void setGcCycles(int gcCycles) {
+        this.gcCycles = gcCycles;
+    }
+
+    public boolean isHeapDumpOnLeak() {
+        return this.heapDumpOnLeak;
+    }
+
+    public void setHeapDumpOnLeak(boolean heapDumpOnLeak) {
+        this.heapDumpOnLeak = heapDumpOnLeak;
+    }
+
+    private static final class WatchedClassLoader {
+
+        private final WeakReference<ClassLoader> classLoader;
+
+        private final WeakReference<ClassLoader> chainedClassLoader;
+
+        private final String bundle;
+
+        private final String contextPath;
+
+        private final long loadedClassCount;
+
+        private final long oldGenerationGcCount;
+
+        private final long gcCount;
+
+        private final long time;
+
+        private boolean reported;
+
+        private WatchedClassLoader(ClassLoader classLoader, ClassLoader chainedClassLoader, String bundle, String contextPath,
+            long loadedClassCount, long oldGenerationGcCount, long gcCount, long time) {
+            this.classLoader = new WeakReference<>(classLoader);
+            this.chainedClassLoader = new WeakReference<>(chainedClassLoader);
+            this.bundle = bundle;
+            this.contextPath = contextPath;
+            this.loadedClassCount = loadedClassCount;
+            this.oldGenerationGcCount = oldGenerationGcCount;
+            this.gcCount = gcCount;
+            this.time = time;
+        }
+
+        private boolean isCollected() {
+            return this.classLoader.get() == null && this.chainedClassLoader.get() == null;
+        }
+    }
+}
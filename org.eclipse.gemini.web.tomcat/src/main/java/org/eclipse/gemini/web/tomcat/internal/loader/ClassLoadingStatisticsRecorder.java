@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.gemini.web.tomcat.spi.ClassLoadingStatistics;
+
+/**
+ * Records the class loading statistics of a web application's class loader.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class ClassLoadingStatisticsRecorder {
+
+    static final int SLOWEST_CLASS_LOADS = 10;
+
+    private final AtomicLong loadClassCount = new AtomicLong();
+
+    private final AtomicLong loadClassTime = new AtomicLong();
+
+    private final AtomicLong classNotFoundCount = new AtomicLong();
+
+    private final AtomicLong resourceLookupCount = new AtomicLong();
+
+    private final String[] slowestClassNames = new String[SLOWEST_CLASS_LOADS];
+
+    private final long[] slowestClassLoadTimes = new long[SLOWEST_CLASS_LOADS];
+
+    /**
+     * The shortest time in the list of the slowest class loads, so that faster loads can be ignored without locking.
+     */
+    private volatile long slowestClassLoadThreshold;
+
+    private final Object monitor = new Object();
+
+    /**
+     * Records a <code>loadClass</code> call.
+     *
+     * @param className the name of the class
+     * @param nanos the time spent in nanoseconds
+     * @param found <code>false</code> if the class was not found
+     */
+    void recordLoadClass(String className, long nanos, boolean found) {
+        this.loadClassTime.addAndGet(nanos);
+        if (!found) {
+            this.classNotFoundCount.incrementAndGet();
+            return;
+        }
+
+        this.loadClassCount.incrementAndGet();
+        if (nanos > this.slowestClassLoadThreshold) {
+            recordSlowClassLoad(className, nanos);
+        }
+    }
+
+    void recordResourceLookup() {
+        this.resourceLookupCount.incrementAndGet();
+    }
+
+    /**
+     * Takes a snapshot of the statistics.
+     *
+     * @param delegateMissCounts the misses of the class loaders in the chain
+     * @return the snapshot
+     */
+    ClassLoadingStatistics snapshot(Map<String, Long> delegateMissCounts) {
+        List<String> slowestClassLoads = new ArrayList<>();
+        synchronized (this.monitor) {
+            for (int i = 0; i < SLOWEST_CLASS_LOADS && this.slowestClassNames[i] != null; i++) {
+                slowestClassLoads.add(this.slowestClassNames[i] + "=" + TimeUnit.NANOSECONDS.toMillis(this.slowestClassLoadTimes[i]));
+            }
+        }
+        return new Snapshot(this.loadClassCount.get(), TimeUnit.NANOSECONDS.toMillis(this.loadClassTime.get()), this.classNotFoundCount.get(),
+            this.resourceLookupCount.get(), delegateMissCounts, slowestClassLoads);
+    }
+
+    private void recordSlowClassLoad(String className, long nanos) {
+        synchronized (this.monitor) {
+            int last = SLOWEST_CLASS_LOADS - 1;
+            if (this.slowestClassNames[last] != null && nanos <= this.slowestClassLoadTimes[last]) {
+                return;
+            }
+
+            // Insertion into the list which is sorted by descending time
+            int i = last;
+            while (i > 0 && (this.slowestClassNames[i - 1] == null || this.slowestClassLoadTimes[i - 1] < nanos)) {
+                this.slowestClassNames[i] = this.slowestClassNames[i - 1];
+                this.slowestClassLoadTimes[i] = this.slowestClassLoadTimes[i - 1];
+                i--;
+            }
+            this.slowestClassNames[i] = className;
+            this.slowestClassLoadTimes[i] = nanos;
+
+            if (this.slowestClassNames[last] != null) {
+                this.slowestClassLoadThreshold = this.slowestClassLoadTimes[last];
+            }
+        }
+    }
+
+    private static final class Snapshot implements ClassLoadingStatistics {
+
+        private final long loadClassCount;
+
+        private final long loadClassTime;
+
+        private final long classNotFoundCount;
+
+        private final long resourceLookupCount;
+
+        private final Map<String, Long> delegateMissCounts;
+
+        private final List<String> slowestClassLoads;
+
+        private Snapshot(long loadClassCount, long loadClassTime, long classNotFoundCount, long resourceLookupCount,
+            Map<String, Long> delegateMissCounts, List<String> slowestClassLoads) {
+            this.loadClassCount = loadClassCount;
+            this.loadClassTime = loadClassTime;
+            this.classNotFoundCount = classNotFoundCount;
+            this.resourceLookupCount = resourceLookupCount;
+            this.delegateMissCounts = Collections.unmodifiableMap(delegateMissCounts);
+            this.slowestClassLoads = Collections.unmodifiableList(slowestClassLoads);
+        }
+
+        @Override
+        public long getLoadClassCount() {
+            return this.loadClassCount;
+        }
+
+        @Override
+        public long getLoadClassTime() {
+            return this.loadClassTime;
+        }
+
+        @Override
+        public long getClassNotFoundCount() {
+            return this.classNotFoundCount;
+        }
+
+        @Override
+        public long getResourceLookupCount() {
+            return this.resourceLookupCount;
+        }
+
+        @Override
+        public Map<String, Long> getDelegateMissCounts() {
+            return this.delegateMissCounts;
+        }
+
+        @Override
+        public List<String> getSlowestClassLoads() {
+            return this.slowestClassLoads;
+        }
+    }
+}
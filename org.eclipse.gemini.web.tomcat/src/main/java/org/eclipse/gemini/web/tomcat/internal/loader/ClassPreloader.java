@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads and links the classes of a web application bundle in parallel while the web application is being started, so
+ * that the first requests do not have to wait for them. The classes are found in <code>WEB-INF/classes</code> and in
+ * the JARs on the Bundle-ClassPath, and can be restricted to a list of patterns, where <code>*</code> matches all
+ * classes, <code>com.example.*</code> matches the classes of the package <code>com.example</code> and its subpackages
+ * and any other pattern matches a single class.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class ClassPreloader {
+
+    static final String ALL_CLASSES = "*";
+
+    static final long DEFAULT_TIMEOUT = 10000L;
+
+    private static final String WEB_INF_CLASSES = "WEB-INF/classes/";
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private static final String WILDCARD_SUFFIX = ".*";
+
+    /**
+     * The number of classes below which a task loads the classes itself instead of splitting them.
+     */
+    private static final int LOAD_THRESHOLD = 32;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Bundle bundle;
+
+    private final ClassLoader classLoader;
+
+    private final List<String> patterns;
+
+    private final AtomicInteger loadedClassCount = new AtomicInteger();
+
+    private final Object monitor = new Object();
+
+    private ForkJoinPool pool;
+
+    private ForkJoinTask<?> task;
+
+    private long startTime;
+
+    ClassPreloader(Bundle bundle, ClassLoader classLoader, List<String> patterns) {
+        this.bundle = bundle;
+        this.classLoader = classLoader;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Parses a comma separated list of patterns.
+     *
+     * @param patterns the patterns or <code>null</code>
+     * @return the patterns, empty if no class has to be preloaded
+     */
+    static List<String> parsePatterns(String patterns) {
+        if (patterns == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> result = new ArrayList<>();
+        for (String pattern : patterns.split(",")) {
+            pattern = pattern.trim();
+            if (!pattern.isEmpty()) {
+                result.add(pattern);
+            }
+        }
+        return result;
+    }
+
+    boolean matches(String className) {
+        for (String pattern : this.patterns) {
+            if (ALL_CLASSES.equals(pattern)) {
+                return true;
+            }
+            if (pattern.endsWith(WILDCARD_SUFFIX)) {
+                if (className.startsWith(pattern.substring(0, pattern.length() - 1))) {
+                    return true;
+                }
+            } else if (className.equals(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts preloading the classes on a pool with as many threads as there are processors.
+     */
+    void start() {
+        synchronized (this.monitor) {
+            this.startTime = System.currentTimeMillis();
+            this.pool = new ForkJoinPool();
+            this.task = this.pool.submit(new PreloadTask());
+        }
+    }
+
+    /**
+     * Waits for the preloading to complete. Preloading which does not complete in time is stopped.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     */
+    void await(long timeout) {
+        ForkJoinTask<?> currentTask;
+        synchronized (this.monitor) {
+            currentTask = this.task;
+        }
+        if (currentTask == null) {
+            return;
+        }
+
+        try {
+            currentTask.get(timeout, TimeUnit.MILLISECONDS);
+            this.log.info("Preloaded [" + this.loadedClassCount.get() + "] classes of web application bundle [" + this.bundle + "] in ["
+                + (System.currentTimeMillis() - this.startTime) + "] ms.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            this.log.warn("Preloading the classes of web application bundle [" + this.bundle + "] did not complete.", e);
+        } finally {
+            stop();
+        }
+    }
+
+    /**
+     * Stops the preloading if it is still running.
+     */
+    void stop() {
+        synchronized (this.monitor) {
+            if (this.pool != null) {
+                this.pool.shutdownNow();
+                this.pool = null;
+            }
+            this.task = null;
+        }
+    }
+
+    int getLoadedClassCount() {
+        return this.loadedClassCount.get();
+    }
+
+    /**
+     * Finds the classes in <code>WEB-INF/classes</code>.
+     */
+    List<String> findWebInfClasses() {
+        List<String> classNames = new ArrayList<>();
+        Enumeration<URL> entries = this.bundle.findEntries(WEB_INF_CLASSES, "*" + CLASS_EXTENSION, true);
+        if (entries == null) {
+            return classNames;
+        }
+
+        while (entries.hasMoreElements()) {
+            String path = entries.nextElement().getPath();
+            int index = path.indexOf(WEB_INF_CLASSES);
+            if (index != -1) {
+                addClassName(path.substring(index + WEB_INF_CLASSES.length()), classNames);
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * Finds the classes in the JAR with the given index on the Bundle-ClassPath.
+     */
+    List<String> findJarClasses(BundleClassPathIndex index, int jarIndex) {
+        List<String> classNames = new ArrayList<>();
+        for (String entryName : index.getEntryNames(jarIndex)) {
+            addClassName(entryName, classNames);
+        }
+        return classNames;
+    }
+
+    private void addClassName(String path, List<String> classNames) {
+        if (!path.endsWith(CLASS_EXTENSION) || path.startsWith("META-INF/")) {
+            return;
+        }
+
+        String className = path.substring(0, path.length() - CLASS_EXTENSION.length()).replace('/', '.');
+        if (!className.endsWith("package-info") && !className.endsWith("module-info") && matches(className)) {
+            classNames.add(className);
+        }
+    }
+
+    private BundleClassPathIndex getBundleClassPathIndex() {
+        if (this.classLoader instanceof BundleWebappClassLoader) {
+            return ((BundleWebappClassLoader) this.classLoader).getBundleClassPathIndex();
+        }
+        return BundleClassPathIndex.build(this.bundle);
+    }
+
+    private void load(String className) {
+        try {
+            Class<?> clazz = Class.forName(className, false, this.classLoader);
+            // Reflecting on the members links the class without initializing it
+            clazz.getDeclaredConstructors();
+            this.loadedClassCount.incrementAndGet();
+        } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("Unable to preload class [" + className + "].", e);
+            }
+        }
+    }
+
+    /**
+     * Lists the classes of each source in a separate task.
+     */
+    private final class PreloadTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            tasks.add(new ListTask(null, -1));
+            BundleClassPathIndex index = getBundleClassPathIndex();
+            for (int i = 0; i < index.getJarCount(); i++) {
+                tasks.add(new ListTask(index, i));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private final class ListTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BundleClassPathIndex index;
+
+        private final int jarIndex;
+
+        private ListTask(BundleClassPathIndex index, int jarIndex) {
+            this.index = index;
+            this.jarIndex = jarIndex;
+        }
+
+        @Override
+        protected void compute() {
+            List<String> classNames = this.index == null ? findWebInfClasses() : findJarClasses(this.index, this.jarIndex);
+            new LoadTask(classNames, 0, classNames.size()).compute();
+        }
+    }
+
+    private final class LoadTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> classNames;
+
+        private final int start;
+
+        private final int end;
+
+        private LoadTask(List<String> classNames, int start, int end) {
+            this.classNames = classNames;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start <= LOAD_THRESHOLD) {
+                for (int i = this.start; i < this.end; i++) {
+                    load(this.classNames.get(i));
+                }
+                return;
+            }
+
+            int middle = (this.start + this.end) >>> 1;
+            invokeAll(new LoadTask(this.classNames, this.start, middle), new LoadTask(this.classNames, middle, this.end));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+
+/**
+ * Clears the lookup caches of a {@link BundleWebappClassLoader} when bundles are resolved or updated, as they may
+ * export packages which were not available before, and when class loader customizers come and go.
+ * <p />
+ * The listeners have to be registered through a context which stays valid while the web application bundle is updated
+ * or refreshed, i.e. not through the context of the web application bundle itself.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class LookupCacheInvalidator implements BundleListener, ServiceListener {
+
+    private static final String CLASS_LOADER_CUSTOMIZER_FILTER = "(" + Constants.OBJECTCLASS + "=" + ClassLoaderCustomizer.class.getName() + ")";
+
+    private final BundleWebappClassLoader classLoader;
+
+    private volatile BundleContext bundleContext;
+
+    LookupCacheInvalidator(BundleWebappClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Starts watching bundle and class loader customizer changes.
+     *
+     * @param bundleContext the context through which the changes are watched
+     * @throws InvalidSyntaxException if the service filter is invalid
+     */
+    void register(BundleContext bundleContext) throws InvalidSyntaxException {
+        this.bundleContext = bundleContext;
+        bundleContext.addBundleListener(this);
+        bundleContext.addServiceListener(this, CLASS_LOADER_CUSTOMIZER_FILTER);
+    }
+
+    /**
+     * Stops watching bundle and class loader customizer changes.
+     */
+    void unregister() {
+        BundleContext context = this.bundleContext;
+        if (context != null) {
+            try {
+                context.removeBundleListener(this);
+                context.removeServiceListener(this);
+            } catch (IllegalStateException e) {
+                // The bundle context is no longer valid, the listeners have already been removed by the framework
+            }
+            this.bundleContext = null;
+        }
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        if (event.getType() == BundleEvent.RESOLVED || event.getType() == BundleEvent.UPDATED) {
+            this.classLoader.clearLookupCaches();
+        }
+    }
+
+    @Override
+    public void serviceChanged(ServiceEvent event) {
+        this.classLoader.clearLookupCaches();
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded set of the class names which a class loader failed to load. It allows a chain of class loaders to skip a
+ * delegate which is known not to have a class instead of letting the delegate search for it and create a
+ * {@link ClassNotFoundException} again. The least recently used names are evicted when the cache is full.
+ * <p />
+ * The cache has to be cleared whenever the delegate could start to find classes which it has not found before, e.g.
+ * when bundles are resolved.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class NegativeLookupCache {
+
+    static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Map<String, Boolean> misses = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > NegativeLookupCache.this.maxSize;
+        }
+    };
+
+    private final Object monitor = new Object();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * Checks whether the delegate is known not to have the given class.
+     *
+     * @param className the name of the class
+     * @return <code>true</code> if a previous lookup of the class failed
+     */
+    boolean contains(String className) {
+        if (this.maxSize <= 0) {
+            return false;
+        }
+
+        boolean contains;
+        synchronized (this.monitor) {
+            contains = this.misses.get(className) != null;
+        }
+
+        if (contains) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+        return contains;
+    }
+
+    /**
+     * Records that the delegate does not have the given class.
+     *
+     * @param className the name of the class
+     */
+    void add(String className) {
+        if (this.maxSize <= 0) {
+            return;
+        }
+
+        synchronized (this.monitor) {
+            this.misses.put(className, Boolean.TRUE);
+        }
+    }
+
+    void clear() {
+        synchronized (this.monitor) {
+            this.misses.clear();
+        }
+    }
+
+    int getSize() {
+        synchronized (this.monitor) {
+            return this.misses.size();
+        }
+    }
+
+    int getMaxSize() {
+        return this.maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        if (maxSize <= 0) {
+            clear();
+        }
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+}
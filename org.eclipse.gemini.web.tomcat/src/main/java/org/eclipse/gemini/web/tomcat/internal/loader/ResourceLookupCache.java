@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the resources found by a class loader, keyed by resource name. Lookups which found nothing are
+ * cached as empty lists. The least recently used names are evicted when the cache is full.
+ * <p />
+ * The cache has to be cleared whenever the class loader could find other resources, e.g. when bundles are resolved.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class ResourceLookupCache {
+
+    static final int DEFAULT_MAX_SIZE = 512;
+
+    private final Map<String, List<URL>> resources = new LinkedHashMap<String, List<URL>>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<URL>> eldest) {
+            return size() > ResourceLookupCache.this.maxSize;
+        }
+    };
+
+    private final Object monitor = new Object();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * Returns the cached resources with the given name.
+     *
+     * @param name the resource name
+     * @return the resources, an empty list if none were found, or <code>null</code> if the name is not cached
+     */
+    List<URL> get(String name) {
+        if (this.maxSize <= 0) {
+            return null;
+        }
+
+        List<URL> urls;
+        synchronized (this.monitor) {
+            urls = this.resources.get(name);
+        }
+
+        if (urls != null) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+        return urls;
+    }
+
+    /**
+     * Caches the resources found for the given name.
+     *
+     * @param name the resource name
+     * @param urls the resources, which must not be modified afterwards
+     */
+    void put(String name, List<URL> urls) {
+        if (this.maxSize <= 0) {
+            return;
+        }
+
+        synchronized (this.monitor) {
+            this.resources.put(name, urls);
+        }
+    }
+
+    void clear() {
+        synchronized (this.monitor) {
+            this.resources.clear();
+        }
+    }
+
+    int getSize() {
+        synchronized (this.monitor) {
+            return this.resources.size();
+        }
+    }
+
+    int getMaxSize() {
+        return this.maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        if (maxSize <= 0) {
+            clear();
+        }
+    }
+
+    long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    long getMissCount() {
+        return this.missCount.get();
+    }
+}
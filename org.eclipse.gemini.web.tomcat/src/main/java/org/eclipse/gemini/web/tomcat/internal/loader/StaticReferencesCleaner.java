@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+
+/**
+ * Clears the static fields of the classes of a stopped web application once the bundle revision which defined them is
+ * no longer used, i.e. when the web application bundle is updated, unresolved or uninstalled.
+ * <p />
+ * The classes are defined by the class loader of the bundle revision and not by the {@link BundleWebappClassLoader},
+ * so they are reused when the same revision is started again. In that case the static fields are left intact.
+ * <p />
+ * The listener has to be registered through a context which stays valid while the web application bundle is updated
+ * or refreshed, i.e. not through the context of the web application bundle itself.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class StaticReferencesCleaner implements BundleListener {
+
+    private final long bundleId;
+
+    private final List<Class<?>> classes;
+
+    private final WebappReferenceCleaner referenceCleaner;
+
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private volatile BundleContext bundleContext;
+
+    StaticReferencesCleaner(Bundle bundle, Collection<Class<?>> classes) {
+        this.bundleId = bundle.getBundleId();
+        this.classes = new ArrayList<>(classes);
+        // The web application's class loader is not referenced, so that it can be collected in the meantime
+        this.referenceCleaner = new WebappReferenceCleaner(null, bundle);
+    }
+
+    /**
+     * Starts watching the web application bundle.
+     *
+     * @param bundleContext the context through which the bundle is watched
+     */
+    void register(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+        bundleContext.addBundleListener(this);
+    }
+
+    /**
+     * Stops watching the web application bundle without clearing the static fields.
+     */
+    void unregister() {
+        BundleContext context = this.bundleContext;
+        if (context != null) {
+            try {
+                context.removeBundleListener(this);
+            } catch (IllegalStateException e) {
+                // The bundle context is no longer valid, the listener has already been removed by the framework
+            }
+            this.bundleContext = null;
+        }
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        if (event.getBundle().getBundleId() != this.bundleId) {
+            return;
+        }
+
+        switch (event.getType()) {
+            case BundleEvent.UPDATED:
+            case BundleEvent.UNRESOLVED:
+            case BundleEvent.UNINSTALLED:
+                if (this.done.compareAndSet(false, true)) {
+                    unregister();
+                    this.referenceCleaner.clearReferencesStatic(this.classes);
+                }
+                break;
+            case BundleEvent.STARTING:
+                // The classes are reused by the web application
+                if (this.done.compareAndSet(false, true)) {
+                    unregister();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
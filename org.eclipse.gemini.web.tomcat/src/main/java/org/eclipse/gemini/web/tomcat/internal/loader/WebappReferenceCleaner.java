@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Clears the references which keep the class loaders of a stopped web application reachable, in the same way as
+ * Tomcat's <code>WebappClassLoaderBase</code>.
+ * <p />
+ * The classes of a web application bundle are defined by the class loader which the OSGi framework creates for the
+ * bundle and not by the {@link BundleWebappClassLoader}. Therefore both class loaders, and the class loaders which
+ * they are parents of, are considered to belong to the web application. Threads of other bundles which merely
+ * inherited the web application's thread context class loader are not stopped, their thread context class loader is
+ * reset if requested.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+final class WebappReferenceCleaner {
+
+    private static final List<String> JVM_THREAD_GROUP_NAMES = Arrays.asList("system", "RMI Runtime");
+
+    private static final String KEEP_ALIVE_TIMER_THREAD_NAME = "Keep-Alive-Timer";
+
+    private static final String TIMER_THREAD_CLASS_NAME_PREFIX = "java.util.Timer";
+
+    private static final String THREAD_POOL_EXECUTOR_WORKER_CLASS_NAME = "java.util.concurrent.ThreadPoolExecutor.Worker";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ClassLoader webappClassLoader;
+
+    private final Bundle bundle;
+
+    WebappReferenceCleaner(ClassLoader webappClassLoader, Bundle bundle) {
+        this.webappClassLoader = webappClassLoader;
+        this.bundle = bundle;
+    }
+
+    /**
+     * Checks whether the given class loader, or one of its parents, is the web application's class loader or the class
+     * loader of the web application bundle.
+     */
+    boolean isWebApplicationClassLoader(ClassLoader classLoader) {
+        ClassLoader current = classLoader;
+        while (current != null) {
+            if (current == this.webappClassLoader) {
+                return true;
+            }
+            if (current instanceof BundleReference && this.bundle.equals(((BundleReference) current).getBundle())) {
+                return true;
+            }
+            current = current.getParent();
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the class of the given object, or one of the elements of the given collection, has been loaded by
+     * the web application.
+     */
+    boolean isLoadedByWebApplication(Object object) {
+        if (object == null) {
+            return false;
+        }
+        if (object instanceof Class) {
+            return isWebApplicationClassLoader(((Class<?>) object).getClassLoader());
+        }
+        if (object instanceof ClassLoader && isWebApplicationClassLoader((ClassLoader) object)) {
+            return true;
+        }
+        if (isWebApplicationClassLoader(object.getClass().getClassLoader())) {
+            return true;
+        }
+        if (object instanceof Collection) {
+            try {
+                for (Object element : (Collection<?>) object) {
+                    if (isLoadedByWebApplication(element)) {
+                        return true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // the collection is modified concurrently or does not support iteration
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops the threads which the web application started and which are still running.
+     *
+     * @param stopThreads whether threads other than timer threads are stopped or only reported
+     * @param stopTimerThreads whether the threads of {@link java.util.Timer}s are stopped
+     * @param clearHttpClientKeepAliveThread whether the thread context class loader of the JVM's HTTP client keep-alive
+     *        thread is reset
+     * @param clearThreadContextClassLoaders whether the thread context class loader of threads which do not run code of
+     *        the web application is reset or only reported
+     */
+    void clearReferencesThreads(boolean stopThreads, boolean stopTimerThreads, boolean clearHttpClientKeepAliveThread,
+        boolean clearThreadContextClassLoaders) {
+        ClassLoader parent = this.webappClassLoader.getParent();
+        for (Thread thread : getThreads()) {
+            if (thread == null || thread == Thread.currentThread() || !thread.isAlive()) {
+                continue;
+            }
+
+            boolean contextClassLoaderPinned = isWebApplicationClassLoader(thread.getContextClassLoader());
+            boolean runsWebApplicationCode = runsWebApplicationCode(thread);
+            if (!contextClassLoaderPinned && !runsWebApplicationCode) {
+                continue;
+            }
+
+            ThreadGroup threadGroup = thread.getThreadGroup();
+            if (threadGroup != null && JVM_THREAD_GROUP_NAMES.contains(threadGroup.getName())) {
+                if (clearHttpClientKeepAliveThread && KEEP_ALIVE_TIMER_THREAD_NAME.equals(thread.getName())) {
+                    thread.setContextClassLoader(parent);
+                    this.log.debug("Reset the context class loader of the HTTP client keep-alive thread.");
+                }
+                continue;
+            }
+
+            if (!runsWebApplicationCode) {
+                // The thread belongs to another bundle and the web application only served as its context class loader
+                if (clearThreadContextClassLoaders) {
+                    thread.setContextClassLoader(parent);
+                    this.log.info("Reset the context class loader of thread [" + thread.getName() + "] of web application bundle ["
+                        + this.bundle + "].");
+                } else {
+                    this.log.warn("Thread [" + thread.getName() + "] has the class loader of web application bundle [" + this.bundle
+                        + "] as its context class loader. This is very likely to create a memory leak.");
+                }
+                continue;
+            }
+
+            if (thread.getClass().getName().startsWith(TIMER_THREAD_CLASS_NAME_PREFIX)) {
+                if (stopTimerThreads) {
+                    clearReferencesStopTimerThread(thread);
+                } else {
+                    this.log.warn("Web application bundle [" + this.bundle + "] started timer thread [" + thread.getName()
+                        + "] which has not been stopped. This is very likely to create a memory leak.");
+                }
+                continue;
+            }
+
+            this.log.warn("Web application bundle [" + this.bundle + "] started thread [" + thread.getName()
+                + "] which has not been stopped. This is very likely to create a memory leak.");
+            if (stopThreads) {
+                stopThread(thread);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the thread runs code of the web application. Plain {@link Thread}s whose target cannot be
+     * inspected are assumed not to do so, so that they are never stopped by mistake.
+     */
+    private boolean runsWebApplicationCode(Thread thread) {
+        if (isLoadedByWebApplication(thread)) {
+            return true;
+        }
+        if (thread.getClass() != Thread.class) {
+            return false;
+        }
+        try {
+            Object target = getFieldValue(Thread.class, thread, "target");
+            if (target != null && THREAD_POOL_EXECUTOR_WORKER_CLASS_NAME.equals(target.getClass().getCanonicalName())) {
+                return isLoadedByWebApplication(getFieldValue(target.getClass(), target, "firstTask"))
+                    || isWebApplicationClassLoader(thread.getContextClassLoader());
+            }
+            return isLoadedByWebApplication(target);
+        } catch (Exception e) {
+            this.log.debug("Unable to determine whether thread [" + thread.getName() + "] runs code of web application bundle ["
+                + this.bundle + "].", e);
+            return false;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void stopThread(Thread thread) {
+        ExecutorService executor = null;
+        try {
+            Object target = getFieldValue(Thread.class, thread, "target");
+            if (target != null && THREAD_POOL_EXECUTOR_WORKER_CLASS_NAME.equals(target.getClass().getCanonicalName())) {
+                Object value = getFieldValue(target.getClass(), target, "this$0");
+                if (value instanceof ExecutorService) {
+                    executor = (ExecutorService) value;
+                }
+            }
+        } catch (Exception e) {
+            this.log.debug("Unable to determine whether thread [" + thread.getName() + "] belongs to an executor.", e);
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+            return;
+        }
+
+        try {
+            thread.stop();
+        } catch (RuntimeException | LinkageError e) {
+            this.log.warn("Failed to stop thread [" + thread.getName() + "].", e);
+        }
+    }
+
+    private void clearReferencesStopTimerThread(Thread thread) {
+        // The timer's queue is cleared so that the thread terminates gracefully after the running task, if any
+        try {
+            Field newTasksMayBeScheduledField = thread.getClass().getDeclaredField("newTasksMayBeScheduled");
+            newTasksMayBeScheduledField.setAccessible(true);
+            Field queueField = thread.getClass().getDeclaredField("queue");
+            queueField.setAccessible(true);
+            Object queue = queueField.get(thread);
+            Method clearMethod = queue.getClass().getDeclaredMethod("clear");
+            clearMethod.setAccessible(true);
+
+            synchronized (queue) {
+                newTasksMayBeScheduledField.setBoolean(thread, false);
+                clearMethod.invoke(queue);
+                queue.notify();
+            }
+            this.log.info("Stopped timer thread [" + thread.getName() + "] of web application bundle [" + this.bundle + "].");
+        } catch (Exception e) {
+            this.log.warn("Failed to stop timer thread [" + thread.getName() + "] of web application bundle [" + this.bundle + "].", e);
+        }
+    }
+
+    /**
+     * Removes the thread local values of the current thread which were created by the web application and reports
+     * those of the other threads. The values of Tomcat's request processing threads are released by renewing the
+     * threads, see <code>ThreadLocalLeakPreventionListener</code>.
+     */
+    void checkThreadLocalsForLeaks() {
+        Field threadLocalsField;
+        Field inheritableThreadLocalsField;
+        Field tableField;
+        try {
+            threadLocalsField = Thread.class.getDeclaredField("threadLocals");
+            threadLocalsField.setAccessible(true);
+            inheritableThreadLocalsField = Thread.class.getDeclaredField("inheritableThreadLocals");
+            inheritableThreadLocalsField.setAccessible(true);
+            tableField = Class.forName("java.lang.ThreadLocal$ThreadLocalMap").getDeclaredField("table");
+            tableField.setAccessible(true);
+        } catch (Exception e) {
+            this.log.debug("Unable to check the thread locals of web application bundle [" + this.bundle + "] for leaks.", e);
+            return;
+        }
+
+        for (Thread thread : getThreads()) {
+            if (thread == null) {
+                continue;
+            }
+            try {
+                checkThreadLocalMapForLeaks(thread, threadLocalsField.get(thread), tableField);
+                checkThreadLocalMapForLeaks(thread, inheritableThreadLocalsField.get(thread), tableField);
+            } catch (Exception e) {
+                this.log.debug("Unable to check the thread locals of thread [" + thread.getName() + "] for leaks.", e);
+            }
+        }
+    }
+
+    private void checkThreadLocalMapForLeaks(Thread thread, Object map, Field tableField) throws Exception {
+        if (map == null) {
+            return;
+        }
+
+        Object[] table = (Object[]) tableField.get(map);
+        if (table == null) {
+            return;
+        }
+
+        for (Object entry : table) {
+            if (entry == null) {
+                continue;
+            }
+
+            Object key = ((Reference<?>) entry).get();
+            Object value = getFieldValue(entry.getClass(), entry, "value");
+            if (!isLoadedByWebApplication(key) && !isLoadedByWebApplication(value)) {
+                continue;
+            }
+
+            if (thread == Thread.currentThread() && key instanceof ThreadLocal) {
+                ((ThreadLocal<?>) key).remove();
+            } else {
+                this.log.warn("Web application bundle [" + this.bundle + "] created a ThreadLocal with key of type ["
+                    + (key != null ? key.getClass().getName() : null) + "] and value of type ["
+                    + (value != null ? value.getClass().getName() : null) + "] but failed to remove it from thread [" + thread.getName()
+                    + "]. This is very likely to create a memory leak.");
+            }
+        }
+    }
+
+    /**
+     * Clears the static fields of the given classes. Non-final fields are set to <code>null</code>, the fields of the
+     * objects referenced by final fields are set to <code>null</code> if the objects have been loaded by the web
+     * application.
+     *
+     * @param classes the classes of the web application
+     */
+    void clearReferencesStatic(Collection<Class<?>> classes) {
+        for (Class<?> clazz : classes) {
+            try {
+                for (Field field : clazz.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) || field.getType().isPrimitive() || field.getName().indexOf('$') != -1) {
+                        continue;
+                    }
+
+                    field.setAccessible(true);
+                    if (Modifier.isFinal(modifiers)) {
+                        Object value = field.get(null);
+                        if (isLoadedByWebApplication(value)) {
+                            nullInstance(value);
+                        }
+                    } else {
+                        field.set(null, null);
+                    }
+                }
+            } catch (Exception | LinkageError e) {
+                this.log.debug("Unable to clear the static fields of class [" + clazz.getName() + "].", e);
+            }
+        }
+    }
+
+    private void nullInstance(Object instance) {
+        for (Field field : instance.getClass().getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.getType().isPrimitive()
+                || field.getName().indexOf('$') != -1) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                field.set(instance, null);
+            } catch (Exception e) {
+                this.log.debug("Unable to clear field [" + field.getName() + "] of class [" + instance.getClass().getName() + "].", e);
+            }
+        }
+    }
+
+    private static Object getFieldValue(Class<?> clazz, Object object, String fieldName) throws Exception {
+        Field field = clazz.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    private static Thread[] getThreads() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+
+        Thread[] threads = new Thread[root.activeCount() + 16];
+        int count;
+        while ((count = root.enumerate(threads)) == threads.length) {
+            threads = new Thread[threads.length * 2];
+        }
+        return Arrays.copyOf(threads, count);
+    }
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.support;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides local file system copies of bundle entries, typically nested archives, so that they can be opened with
+ * random access. Entries of bundles installed as directories are used in place. Entries of packed bundles are copied
+ * once per bundle revision into the bundle data area, or into a private temporary directory when the framework does
+ * not provide a data area.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+public final class BundleEntryExtractor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundleEntryExtractor.class);
+
+    private static final String CACHE_DIRECTORY = "gemini-web-entries";
+
+    private static final String ENTRIES_DIRECTORY = "entries";
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String PATH_SEPARATOR = "/";
+
+    /** bundle id to the temporary directory created for the bundle */
+    private static final ConcurrentMap<Long, File> TEMPORARY_CACHE_DIRECTORIES = new ConcurrentHashMap<>();
+
+    private BundleEntryExtractor() {
+    }
+
+    /**
+     * Returns a local file with the content of the given bundle entry.
+     *
+     * @param bundle the bundle which provides the entry
+     * @param path the path of the entry
+     * @param entryURL the URL of the entry, used to copy its content when there is no local file for it
+     * @return the local file
+     * @throws IOException if the entry cannot be copied
+     */
+    public static File getLocalFile(Bundle bundle, String path, URL entryURL) throws IOException {
+        String entryPath = path.startsWith(PATH_SEPARATOR) ? path.substring(1) : path;
+
+        File bundleLocation = BundleFileResolverFactory.createBundleFileResolver().resolve(bundle);
+        if (bundleLocation != null && bundleLocation.isDirectory()) {
+            File file = new File(bundleLocation, entryPath);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+
+        File file = new File(new File(getRevisionDirectory(bundle), ENTRIES_DIRECTORY), entryPath);
+        if (!file.isFile()) {
+            try (InputStream is = entryURL.openStream()) {
+                store(is, file, false);
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Copied bundle entry '" + entryURL + "' to '" + file.getAbsolutePath() + "'");
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Returns the directory in which the files derived from the current revision of the given bundle are stored. Files
+     * derived from previous revisions are deleted.
+     *
+     * @param bundle the bundle
+     * @return the directory
+     */
+    public static File getRevisionDirectory(Bundle bundle) {
+        File cacheDirectory = bundle.getDataFile(CACHE_DIRECTORY);
+        if (cacheDirectory == null) {
+            cacheDirectory = getTemporaryCacheDirectory(bundle.getBundleId());
+        }
+
+        String revision = String.valueOf(bundle.getLastModified());
+        File revisionDirectory = new File(cacheDirectory, revision);
+        if (!revisionDirectory.isDirectory()) {
+            deleteStaleRevisions(cacheDirectory, revision);
+        }
+        return revisionDirectory;
+    }
+
+    /**
+     * Deletes the files derived from the given bundle which have been stored in the temporary directory because the
+     * framework did not provide a data area. The files in the data area are deleted by the framework when the bundle is
+     * uninstalled.
+     *
+     * @param bundleId the id of the uninstalled bundle
+     */
+    public static void deleteTemporaryFiles(long bundleId) {
+        File cacheDirectory = TEMPORARY_CACHE_DIRECTORIES.remove(bundleId);
+        if (cacheDirectory != null && cacheDirectory.exists()) {
+            delete(cacheDirectory);
+        }
+    }
+
+    /**
+     * Deletes the files derived from all bundles which have been stored in the temporary directory. Used when the
+     * container is stopped, as the temporary directories are not reused by the next run.
+     */
+    public static void deleteTemporaryFiles() {
+        for (Long bundleId : TEMPORARY_CACHE_DIRECTORIES.keySet()) {
+            deleteTemporaryFiles(bundleId);
+        }
+    }
+
+    /**
+     * Returns the temporary directory of the given bundle. The directory is created with a unique name, and on file
+     * systems which support it with permissions for the owner only, so that other users of the temporary directory
+     * can neither predict nor replace the files extracted into it.
+     */
+    private static File getTemporaryCacheDirectory(long bundleId) {
+        File cacheDirectory = TEMPORARY_CACHE_DIRECTORIES.get(bundleId);
+        if (cacheDirectory != null) {
+            return cacheDirectory;
+        }
+
+        try {
+            cacheDirectory = Files.createTempDirectory(CACHE_DIRECTORY + "-" + bundleId + "-").toFile();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create a temporary directory for bundle [" + bundleId + "].", e);
+        }
+        File existing = TEMPORARY_CACHE_DIRECTORIES.putIfAbsent(bundleId, cacheDirectory);
+        if (existing != null) {
+            // The directory has been created concurrently
+            delete(cacheDirectory);
+            return existing;
+        }
+        return cacheDirectory;
+    }
+
+    /**
+     * Stores the given content in the given file. The content is written to a temporary file first, so that concurrent
+     * readers never see a partially written file.
+     *
+     * @param content the content
+     * @param file the file
+     * @param compress <code>true</code> if the content should be stored in GZIP format
+     * @throws IOException if the content cannot be stored
+     */
+    public static void store(InputStream content, File file, boolean compress) throws IOException {
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Unable to create directory [" + parent + "].");
+        }
+
+        File tempFile = File.createTempFile(file.getName(), TEMP_FILE_SUFFIX, parent);
+        try {
+            try (OutputStream os = compress ? new GZIPOutputStream(new FileOutputStream(tempFile)) : new FileOutputStream(tempFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    os.write(buffer, 0, n);
+                }
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (FileAlreadyExistsException e) {
+                // The file has been stored concurrently
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static void deleteStaleRevisions(File cacheDirectory, String revision) {
+        File[] revisionDirectories = cacheDirectory.listFiles();
+        if (revisionDirectories != null) {
+            for (File revisionDirectory : revisionDirectories) {
+                if (!revisionDirectory.getName().equals(revision)) {
+                    delete(revisionDirectory);
+                }
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete() && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Unable to delete '" + file.getAbsolutePath() + "'");
+        }
+    }
+}
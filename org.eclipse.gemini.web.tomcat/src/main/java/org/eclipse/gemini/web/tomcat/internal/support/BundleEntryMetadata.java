@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.support;
+
+/**
+ * The size and the last modification time of a bundle entry as recorded by the framework.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ * Immutable and therefore thread-safe.
+ */
+public final class BundleEntryMetadata {
+
+    public static final long UNKNOWN = -1L;
+
+    private final long size;
+
+    private final long lastModified;
+
+    public BundleEntryMetadata(long size, long lastModified) {
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the size of the entry in bytes, or {@link #UNKNOWN}
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return the last modification time of the entry in milliseconds, or {@link #UNKNOWN}
+     */
+    public long getLastModified() {
+        return this.lastModified;
+    }
+}
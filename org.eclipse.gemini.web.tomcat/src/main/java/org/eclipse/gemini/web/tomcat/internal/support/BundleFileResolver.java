@@ -37,11 +37,12 @@ public interface BundleFileResolver {
     File resolve(Bundle bundle);
 
     /**
-     * Attempts to resolve the size of the specified bundle entry from the given bundle.
+     * Attempts to resolve the size and the last modification time of the specified bundle entry from the given bundle
+     * with a single lookup.
      * 
      * @param bundle the bundle that contains the specified bundle entry.
      * @param path the specified bundle entry.
-     * @return the size of the specified bundle entry from the given bundle, or -1 if it cannot be determined.
+     * @return the metadata of the specified bundle entry, or <code>null</code> if it cannot be determined.
      */
-    long resolveBundleEntrySize(Bundle bundle, String path);
+    BundleEntryMetadata resolveBundleEntryMetadata(Bundle bundle, String path);
 }
@@ -41,8 +41,8 @@ public final class BundleFileResolverFactory {
         }
 
         @Override
-        public long resolveBundleEntrySize(Bundle bundle, String path) {
-            return -1L;
+        public BundleEntryMetadata resolveBundleEntryMetadata(Bundle bundle, String path) {
+            return null;
         }
 
     }
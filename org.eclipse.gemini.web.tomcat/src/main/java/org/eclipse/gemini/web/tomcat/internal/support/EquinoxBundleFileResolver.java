@@ -44,15 +44,15 @@ final class EquinoxBundleFileResolver implements BundleFileResolver {
     }
 
     @Override
-    public long resolveBundleEntrySize(Bundle bundle, String path) {
+    public BundleEntryMetadata resolveBundleEntryMetadata(Bundle bundle, String path) {
         BundleFile bundleFile = getBundleFile(bundle);
         if (bundleFile != null) {
             BundleEntry bundleEntry = bundleFile.getEntry(path);
             if (bundleEntry != null) {
-                return bundleEntry.getSize();
+                return new BundleEntryMetadata(bundleEntry.getSize(), bundleEntry.getTime());
             }
         }
-        return -1L;
+        return null;
     }
 
     public static boolean canUse() {
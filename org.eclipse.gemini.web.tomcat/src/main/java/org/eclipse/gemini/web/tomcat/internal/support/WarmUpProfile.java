@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.support;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The resource paths and the class names which a web application accessed during its previous run. The profile is
+ * recorded while the web application runs and is stored when it stops, so that on the next start the same resources
+ * and classes can be prefetched in the background before the web application is made available.
+ * <p />
+ * Resources are ranked by the number of accesses, classes by the order in which they were loaded.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * This class is thread safe.
+ */
+public final class WarmUpProfile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpProfile.class);
+
+    public static final int DEFAULT_MAX_ENTRIES = 500;
+
+    private static final String RESOURCE_PREFIX = "R ";
+
+    private static final String CLASS_PREFIX = "C ";
+
+    private static final String LINE_SEPARATOR = "\n";
+
+    /**
+     * How many more distinct resource paths than stored ones are counted, so that paths which become popular later
+     * in the run can still make it into the profile.
+     */
+    private static final int TRACKING_FACTOR = 4;
+
+    private static final long WARM_UP_TIMEOUT = 30000L;
+
+    private final File file;
+
+    private final int maxEntries;
+
+    private final List<String> resources = new ArrayList<>();
+
+    private final List<String> classes = new ArrayList<>();
+
+    private final Map<String, AtomicInteger> resourceAccesses = new ConcurrentHashMap<>();
+
+    private final AtomicInteger classOrder = new AtomicInteger();
+
+    private final Map<String, Integer> classOrders = new ConcurrentHashMap<>();
+
+    private final List<Thread> warmUpThreads = new ArrayList<>();
+
+    private final Object monitor = new Object();
+
+    /**
+     * Creates a profile which is stored in the given file and loads the profile of the previous run from it.
+     *
+     * @param file the file in which the profile is stored
+     * @param maxEntries the maximum number of resource paths and of class names which are stored
+     */
+    public WarmUpProfile(File file, int maxEntries) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        load();
+    }
+
+    /**
+     * @return the resource paths recorded in the previous run, the most accessed first
+     */
+    public List<String> getResources() {
+        return Collections.unmodifiableList(this.resources);
+    }
+
+    /**
+     * @return the class names recorded in the previous run, in the order in which they were loaded
+     */
+    public List<String> getClasses() {
+        return Collections.unmodifiableList(this.classes);
+    }
+
+    /**
+     * Records an access to the resource with the given path.
+     *
+     * @param path the path of the resource
+     */
+    public void recordResource(String path) {
+        AtomicInteger accesses = this.resourceAccesses.get(path);
+        if (accesses == null) {
+            if (this.resourceAccesses.size() >= this.maxEntries * TRACKING_FACTOR) {
+                return;
+            }
+            AtomicInteger newAccesses = new AtomicInteger();
+            accesses = this.resourceAccesses.putIfAbsent(path, newAccesses);
+            if (accesses == null) {
+                accesses = newAccesses;
+            }
+        }
+        accesses.incrementAndGet();
+    }
+
+    /**
+     * Records that the class with the given name has been loaded.
+     *
+     * @param className the name of the class
+     */
+    public void recordClass(String className) {
+        if (this.classOrders.size() < this.maxEntries && !this.classOrders.containsKey(className)) {
+            this.classOrders.putIfAbsent(className, this.classOrder.getAndIncrement());
+        }
+    }
+
+    /**
+     * Runs the given warm-up task in a background thread.
+     *
+     * @param name the name of the task
+     * @param task the task
+     */
+    public void warmUp(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        synchronized (this.monitor) {
+            this.warmUpThreads.add(thread);
+        }
+        thread.start();
+    }
+
+    /**
+     * Waits for the warm-up tasks to complete. The waiting is bounded, a warm-up which takes too long is left running
+     * in the background.
+     */
+    public void awaitWarmUp() {
+        List<Thread> threads;
+        synchronized (this.monitor) {
+            threads = new ArrayList<>(this.warmUpThreads);
+            this.warmUpThreads.clear();
+        }
+
+        long deadline = System.currentTimeMillis() + WARM_UP_TIMEOUT;
+        try {
+            for (Thread thread : threads) {
+                long timeout = deadline - System.currentTimeMillis();
+                if (timeout > 0) {
+                    thread.join(timeout);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stores the resource paths and the class names recorded in the current run. If nothing has been recorded the
+     * profile of the previous run is kept.
+     */
+    public void store() {
+        List<String> topResources = getTopResources();
+        List<String> loadedClassNames = getLoadedClasses();
+        if (topResources.isEmpty() && loadedClassNames.isEmpty()) {
+            return;
+        }
+
+        StringBuilder content = new StringBuilder();
+        for (String resource : topResources) {
+            content.append(RESOURCE_PREFIX).append(resource).append(LINE_SEPARATOR);
+        }
+        for (String className : loadedClassNames) {
+            content.append(CLASS_PREFIX).append(className).append(LINE_SEPARATOR);
+        }
+
+        try {
+            BundleEntryExtractor.store(new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8)), this.file, false);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to store the warm-up profile '" + this.file.getAbsolutePath() + "'", e);
+        }
+    }
+
+    private void load() {
+        if (!this.file.isFile()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(this.file.toPath()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESOURCE_PREFIX) && this.resources.size() < this.maxEntries) {
+                    this.resources.add(line.substring(RESOURCE_PREFIX.length()));
+                } else if (line.startsWith(CLASS_PREFIX) && this.classes.size() < this.maxEntries) {
+                    this.classes.add(line.substring(CLASS_PREFIX.length()));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read the warm-up profile '" + this.file.getAbsolutePath() + "'", e);
+            this.resources.clear();
+            this.classes.clear();
+        }
+    }
+
+    private List<String> getTopResources() {
+        List<Map.Entry<String, AtomicInteger>> entries = new ArrayList<>(this.resourceAccesses.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, AtomicInteger>>() {
+
+            @Override
+            public int compare(Map.Entry<String, AtomicInteger> entry1, Map.Entry<String, AtomicInteger> entry2) {
+                return Integer.compare(entry2.getValue().get(), entry1.getValue().get());
+            }
+        });
+
+        List<String> topResources = new ArrayList<>();
+        for (int i = 0; i < entries.size() && i < this.maxEntries; i++) {
+            topResources.add(entries.get(i).getKey());
+        }
+        return topResources;
+    }
+
+    private List<String> getLoadedClasses() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(this.classOrders.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+
+            @Override
+            public int compare(Map.Entry<String, Integer> entry1, Map.Entry<String, Integer> entry2) {
+                return entry1.getValue().compareTo(entry2.getValue());
+            }
+        });
+
+        List<String> loadedClassNames = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            loadedClassNames.add(entry.getKey());
+        }
+        return loadedClassNames;
+    }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.spi;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of the class loading statistics of a web application's class loader.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Implementations must be immutable and therefore thread safe.
+ */
+public interface ClassLoadingStatistics {
+
+    /**
+     * @return the number of classes which the class loader returned from <code>loadClass</code>
+     */
+    long getLoadClassCount();
+
+    /**
+     * @return the time in milliseconds spent in <code>loadClass</code>
+     */
+    long getLoadClassTime();
+
+    /**
+     * @return the number of <code>loadClass</code> calls which ended with a {@link ClassNotFoundException}
+     */
+    long getClassNotFoundCount();
+
+    /**
+     * @return the number of <code>getResource</code>, <code>getResources</code> and <code>getResourceAsStream</code>
+     *         calls
+     */
+    long getResourceLookupCount();
+
+    /**
+     * @return the number of classes which each class loader in the chain failed to load, keyed by the description of
+     *         the class loader, in the order of the chain
+     */
+    Map<String, Long> getDelegateMissCounts();
+
+    /**
+     * @return the slowest class loads as <code>&lt;class name&gt;=&lt;time in milliseconds&gt;</code>, the slowest
+     *         first
+     */
+    List<String> getSlowestClassLoads();
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.spi;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * Service which provides the class loading statistics of the deployed web applications.
+ * <p />
+ *
+ * <strong>Concurrent Semantics</strong><br />
+ *
+ * Implementations must be thread safe.
+ */
+public interface ClassLoadingStatisticsProvider {
+
+    /**
+     * Takes a snapshot of the class loading statistics of the given web application bundle.
+     *
+     * @param webBundle the web application bundle
+     * @return the statistics or <code>null</code> if the bundle is not a started web application
+     */
+    ClassLoadingStatistics getClassLoadingStatistics(Bundle webBundle);
+}
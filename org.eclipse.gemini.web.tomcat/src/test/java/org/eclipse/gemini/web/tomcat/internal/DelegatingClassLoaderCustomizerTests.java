@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+
+package org.eclipse.gemini.web.tomcat.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.easymock.IAnswer;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+
+public class DelegatingClassLoaderCustomizerTests {
+
+    private final StubBundle bundle = new StubBundle(5L);
+
+    private BundleContext context;
+
+    private BundleListener bundleListener;
+
+    private ServiceListener serviceListener;
+
+    private ServiceReference<ClassLoaderCustomizer> customizerReference;
+
+    private ServiceReference<ClassLoaderCustomizer> otherCustomizerReference;
+
+    private DelegatingClassLoaderCustomizer delegatingClassLoaderCustomizer;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() throws Exception {
+        this.customizerReference = createNiceMock(ServiceReference.class);
+        this.otherCustomizerReference = createNiceMock(ServiceReference.class);
+        replay(this.customizerReference, this.otherCustomizerReference);
+
+        this.context = createNiceMock(BundleContext.class);
+        this.context.addBundleListener(isA(BundleListener.class));
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+
+            @Override
+            public Object answer() {
+                DelegatingClassLoaderCustomizerTests.this.bundleListener = (BundleListener) getCurrentArguments()[0];
+                return null;
+            }
+        });
+        this.context.addServiceListener(isA(ServiceListener.class), isA(String.class));
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+
+            @Override
+            public Object answer() {
+                DelegatingClassLoaderCustomizerTests.this.serviceListener = (ServiceListener) getCurrentArguments()[0];
+                return null;
+            }
+        });
+        expect(this.context.createFilter(isA(String.class))).andReturn(
+            FrameworkUtil.createFilter("(objectClass=" + ClassLoaderCustomizer.class.getName() + ")")).anyTimes();
+        expect(this.context.getService(this.customizerReference)).andReturn(createCustomizer()).anyTimes();
+        expect(this.context.getService(this.otherCustomizerReference)).andReturn(createCustomizer()).anyTimes();
+        replay(this.context);
+
+        this.delegatingClassLoaderCustomizer = new DelegatingClassLoaderCustomizer(this.context);
+        this.delegatingClassLoaderCustomizer.open();
+        assertNotNull(this.bundleListener);
+        assertNotNull(this.serviceListener);
+
+        this.serviceListener.serviceChanged(new ServiceEvent(ServiceEvent.REGISTERED, this.customizerReference));
+    }
+
+    @After
+    public void tearDown() {
+        this.delegatingClassLoaderCustomizer.close();
+    }
+
+    @Test
+    public void testThrowawayClassLoaderIsReused() {
+        ClassLoader throwawayClassLoader = this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle);
+        assertNotNull(throwawayClassLoader);
+        assertSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+
+        this.bundleListener.bundleChanged(new BundleEvent(BundleEvent.STARTED, this.bundle));
+        assertSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+    }
+
+    @Test
+    public void testNewRevisionGetsNewThrowawayClassLoader() {
+        ClassLoader throwawayClassLoader = this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle);
+        this.bundle.setLastModified(1L);
+        assertNotSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+    }
+
+    @Test
+    public void testThrowawayClassLoaderIsReleasedOnUpdate() {
+        assertReleasedOn(BundleEvent.UPDATED);
+    }
+
+    @Test
+    public void testThrowawayClassLoaderIsReleasedOnUnresolve() {
+        assertReleasedOn(BundleEvent.UNRESOLVED);
+    }
+
+    @Test
+    public void testThrowawayClassLoaderIsReleasedOnUninstall() {
+        assertReleasedOn(BundleEvent.UNINSTALLED);
+    }
+
+    @Test
+    public void testThrowawayClassLoaderIsReleasedWhenWebApplicationStops() {
+        ClassLoader throwawayClassLoader = this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle);
+
+        this.delegatingClassLoaderCustomizer.releaseThrowawayClassLoader(new StubBundle(6L));
+        assertSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+
+        this.delegatingClassLoaderCustomizer.releaseThrowawayClassLoader(this.bundle);
+        assertNotSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+    }
+
+    @Test
+    public void testThrowawayClassLoaderIsReleasedWhenCustomizerIsAdded() {
+        ClassLoader throwawayClassLoader = this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle);
+
+        this.serviceListener.serviceChanged(new ServiceEvent(ServiceEvent.REGISTERED, this.otherCustomizerReference));
+
+        assertNotSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+    }
+
+    @Test
+    public void testThrowawayClassLoaderIsReleasedWhenCustomizerIsRemoved() {
+        ClassLoader throwawayClassLoader = this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle);
+
+        this.serviceListener.serviceChanged(new ServiceEvent(ServiceEvent.UNREGISTERING, this.customizerReference));
+        this.serviceListener.serviceChanged(new ServiceEvent(ServiceEvent.REGISTERED, this.customizerReference));
+
+        assertNotSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+    }
+
+    private ClassLoaderCustomizer createCustomizer() {
+        ClassLoaderCustomizer customizer = createMock(ClassLoaderCustomizer.class);
+        expect(customizer.createThrowawayClassLoader(this.bundle)).andReturn(new ClassLoader() {
+        }).anyTimes();
+        replay(customizer);
+        return customizer;
+    }
+
+    private void assertReleasedOn(int eventType) {
+        ClassLoader throwawayClassLoader = this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle);
+
+        Bundle otherBundle = new StubBundle(6L);
+        this.bundleListener.bundleChanged(new BundleEvent(eventType, otherBundle));
+        assertSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+
+        this.bundleListener.bundleChanged(new BundleEvent(eventType, this.bundle));
+        assertNotSame(throwawayClassLoader, this.delegatingClassLoaderCustomizer.createThrowawayClassLoader(this.bundle));
+    }
+}
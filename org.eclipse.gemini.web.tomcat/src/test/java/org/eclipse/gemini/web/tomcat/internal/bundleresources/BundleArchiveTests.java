@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryMetadata;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class BundleArchiveTests {
+
+    private static final int CONTENT_SIZE = 64 * 1024;
+
+    private File archiveFile;
+
+    private BundleArchive archive;
+
+    @Before
+    public void setUp() throws IOException {
+        this.archiveFile = File.createTempFile("bundle", ".jar");
+        byte[] content = new byte[CONTENT_SIZE];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(this.archiveFile))) {
+            zos.putNextEntry(new ZipEntry("static/"));
+            zos.closeEntry();
+
+            ZipEntry storedEntry = new ZipEntry("static/video.bin");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(content.length);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            storedEntry.setCrc(crc.getValue());
+            zos.putNextEntry(storedEntry);
+            zos.write(content);
+            zos.closeEntry();
+
+            zos.putNextEntry(new ZipEntry("static/index.html"));
+            zos.write(content);
+            zos.closeEntry();
+        }
+
+        this.archive = new BundleArchive(new StubBundle(), new StubBundleFileResolver(this.archiveFile));
+    }
+
+    @After
+    public void tearDown() {
+        this.archive.close();
+        this.archiveFile.delete();
+    }
+
+    @Test
+    public void testGetEntry() {
+        assertNotNull(this.archive.getEntry("/static/video.bin"));
+        assertNotNull(this.archive.getEntry("static/index.html"));
+        assertNull(this.archive.getEntry("static/missing.html"));
+    }
+
+    @Test
+    public void testSkipStoredEntry() throws IOException {
+        try (InputStream is = this.archive.getInputStream("/static/video.bin")) {
+            assertEquals(CONTENT_SIZE - 10, is.skip(CONTENT_SIZE - 10));
+            assertEquals((byte) (CONTENT_SIZE - 10), (byte) is.read());
+        }
+    }
+
+    @Test
+    public void testSkipDeflatedEntry() throws IOException {
+        try (InputStream is = this.archive.getInputStream("static/index.html")) {
+            assertEquals(1000, is.skip(1000));
+            assertEquals((byte) 1000, (byte) is.read());
+        }
+    }
+
+    @Test
+    public void testNoStreamForDirectoriesAndMissingEntries() throws IOException {
+        assertNull(this.archive.getInputStream("static/"));
+        assertNull(this.archive.getInputStream("static/missing.html"));
+    }
+
+    @Test
+    public void testCloseWhileReading() throws IOException {
+        try (InputStream is = this.archive.getInputStream("static/index.html")) {
+            assertEquals((byte) 0, (byte) is.read());
+            this.archive.close();
+            assertEquals(CONTENT_SIZE - 1, readFully(is));
+        }
+
+        // The archive is opened again
+        assertNotNull(this.archive.getEntry("static/index.html"));
+    }
+
+    @Test
+    public void testSignedBundleIsNotReadDirectly() throws IOException {
+        Bundle signedBundle = createMock(Bundle.class);
+        // Only the presence of a signer matters
+        Map<X509Certificate, List<X509Certificate>> signers = new HashMap<>();
+        signers.put(null, Collections.<X509Certificate> emptyList());
+        expect(signedBundle.getSignerCertificates(Bundle.SIGNERS_ALL)).andReturn(signers);
+        replay(signedBundle);
+
+        BundleArchive signedArchive = new BundleArchive(signedBundle, new StubBundleFileResolver(this.archiveFile));
+        assertNull(signedArchive.getEntry("static/video.bin"));
+        assertNull(signedArchive.getInputStream("static/video.bin"));
+
+        verify(signedBundle);
+    }
+
+    @Test
+    public void testNoArchive() throws IOException {
+        BundleArchive directoryArchive = new BundleArchive(new StubBundle(), new StubBundleFileResolver(this.archiveFile.getParentFile()));
+        assertNull(directoryArchive.getEntry("static/video.bin"));
+        assertNull(directoryArchive.getInputStream("static/video.bin"));
+    }
+
+    private static int readFully(InputStream is) throws IOException {
+        byte[] buffer = new byte[1024];
+        int size = 0;
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            size += n;
+        }
+        return size;
+    }
+
+    private static final class StubBundleFileResolver implements BundleFileResolver {
+
+        private final File file;
+
+        private StubBundleFileResolver(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public File resolve(Bundle bundle) {
+            return this.file;
+        }
+
+        @Override
+        public BundleEntryMetadata resolveBundleEntryMetadata(Bundle bundle, String path) {
+            return null;
+        }
+    }
+}
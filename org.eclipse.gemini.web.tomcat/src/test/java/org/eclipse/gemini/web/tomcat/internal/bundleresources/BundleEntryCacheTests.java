@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.net.URL;
+
+import org.junit.Test;
+
+public class BundleEntryCacheTests {
+
+    private static final String PATH = "sub/one.txt";
+
+    private static final String MISSING_PATH = "sub/missing.txt";
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        BundleEntryCache cache = new BundleEntryCache();
+        URL url = new File("src/test/resources/sub/one.txt").toURI().toURL();
+
+        assertNull(cache.get(PATH));
+        cache.put(PATH, url);
+        cache.put(MISSING_PATH, null);
+
+        assertSame(url, cache.get(PATH).getURL());
+        BundleEntryCache.CachedEntry missing = cache.get(MISSING_PATH);
+        assertNotNull(missing);
+        assertNull(missing.getURL());
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        BundleEntryCache cache = new BundleEntryCache();
+        cache.setMaxSize(2);
+
+        cache.put("a", null);
+        cache.put("b", null);
+        cache.get("a");
+        cache.put("c", null);
+
+        assertEquals(2, cache.getSize());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        BundleEntryCache cache = new BundleEntryCache();
+        cache.setTtl(-1L);
+
+        cache.put(PATH, null);
+        Thread.sleep(2);
+
+        assertNull(cache.get(PATH));
+
+        cache.put(PATH, null);
+        Thread.sleep(2);
+        cache.gc();
+
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testDisabled() {
+        BundleEntryCache cache = new BundleEntryCache();
+        cache.setMaxSize(0);
+
+        cache.put(PATH, null);
+
+        assertNull(cache.get(PATH));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testClear() {
+        BundleEntryCache cache = new BundleEntryCache();
+
+        cache.put(PATH, null);
+        cache.clear();
+
+        assertNull(cache.get(PATH));
+    }
+}
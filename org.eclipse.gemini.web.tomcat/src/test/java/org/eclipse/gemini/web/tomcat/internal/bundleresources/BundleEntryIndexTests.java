@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Vector;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryMetadata;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class BundleEntryIndexTests {
+
+    private static final long LAST_MODIFIED = 1234L;
+
+    private final StubBundle testBundle = new StubBundle();
+
+    private BundleEntryIndex entryIndex;
+
+    @Before
+    public void setUp() {
+        this.testBundle.addEntryPaths("", createPathsEnumeration("sub/", "index.html"));
+        this.testBundle.addEntryPaths("sub/", createPathsEnumeration("sub/one.txt", "sub/another.sub/"));
+        this.testBundle.addEntryPaths("sub/another.sub/", createPathsEnumeration("sub/another.sub/two.txt"));
+
+        this.entryIndex = BundleEntryIndex.build(this.testBundle, Collections.<Bundle> emptyList(), new StubBundleFileResolver());
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(5, this.entryIndex.size());
+    }
+
+    @Test
+    public void testLookup() {
+        assertTrue(this.entryIndex.lookup("").isDirectory());
+        assertTrue(this.entryIndex.lookup("/").isDirectory());
+        assertTrue(this.entryIndex.lookup("sub/").isDirectory());
+        assertTrue(this.entryIndex.lookup("/sub").isDirectory());
+        assertTrue(this.entryIndex.lookup("sub/.").isDirectory());
+        assertFalse(this.entryIndex.lookup("sub/one.txt").isDirectory());
+        assertFalse(this.entryIndex.lookup("/sub/another.sub/two.txt").isDirectory());
+        assertFalse(this.entryIndex.lookup("index.html").isDirectory());
+
+        assertNull(this.entryIndex.lookup("sub/missing.txt"));
+        assertNull(this.entryIndex.lookup("missing/"));
+        assertNull(this.entryIndex.lookup("sub/one.txt/"));
+    }
+
+    @Test
+    public void testMetadata() {
+        BundleEntryIndex.Node node = this.entryIndex.lookup("sub/one.txt");
+        assertNotNull(node);
+        assertEquals("sub/one.txt".length(), node.getSize());
+        assertEquals(LAST_MODIFIED, node.getLastModified());
+    }
+
+    @Test
+    public void testChildren() {
+        BundleEntryIndex.Node node = this.entryIndex.lookup("sub/");
+        assertEquals(2, node.getChildCount());
+        assertEquals("another.sub", node.getChildName(0));
+        assertTrue(node.getChild(0).isDirectory());
+        assertEquals("one.txt", node.getChildName(1));
+        assertFalse(node.getChild(1).isDirectory());
+    }
+
+    @Test
+    public void testFragmentOverlay() {
+        StubBundle host = new StubBundle();
+        host.addEntryPaths("", createPathsEnumeration("sub/", "index.html"));
+        host.addEntryPaths("sub/", createPathsEnumeration("sub/one.txt"));
+        StubBundle fragment = new StubBundle();
+        fragment.addEntryPaths("", createPathsEnumeration("sub/", "index.html", "fragment.html"));
+        fragment.addEntryPaths("sub/", createPathsEnumeration("sub/one.txt", "sub/three.txt"));
+
+        BundleEntryIndex overlay = BundleEntryIndex.build(host, Collections.<Bundle> singletonList(fragment), new StubBundleFileResolver());
+        assertEquals(5, overlay.size());
+        assertEquals(host, overlay.lookup("index.html").getBundle());
+        assertEquals(host, overlay.lookup("sub/one.txt").getBundle());
+        assertEquals(host, overlay.lookup("sub/").getBundle());
+        assertEquals(fragment, overlay.lookup("fragment.html").getBundle());
+        assertEquals(fragment, overlay.lookup("sub/three.txt").getBundle());
+    }
+
+    @Test
+    public void testCanLookup() {
+        assertTrue(this.entryIndex.canLookup(""));
+        assertTrue(this.entryIndex.canLookup("/"));
+        assertTrue(this.entryIndex.canLookup("sub/one.txt"));
+        assertTrue(this.entryIndex.canLookup("/sub/."));
+        assertTrue(this.entryIndex.canLookup("sub/another.sub/"));
+
+        assertFalse(this.entryIndex.canLookup("sub//one.txt"));
+        assertFalse(this.entryIndex.canLookup("sub/../index.html"));
+        assertFalse(this.entryIndex.canLookup("./index.html"));
+    }
+
+    private Enumeration<String> createPathsEnumeration(String... paths) {
+        return new Vector<>(Arrays.asList(paths)).elements();
+    }
+
+    private static class StubBundleFileResolver implements BundleFileResolver {
+
+        @Override
+        public File resolve(Bundle bundle) {
+            return null;
+        }
+
+        @Override
+        public BundleEntryMetadata resolveBundleEntryMetadata(Bundle bundle, String path) {
+            return new BundleEntryMetadata(path.length(), LAST_MODIFIED);
+        }
+    }
+}
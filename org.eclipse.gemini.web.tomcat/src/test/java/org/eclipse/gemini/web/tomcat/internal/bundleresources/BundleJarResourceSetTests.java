@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.catalina.LifecycleState;
+import org.apache.catalina.WebResource;
+import org.apache.catalina.WebResourceRoot;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BundleJarResourceSetTests {
+
+    private static final String ARCHIVE_PATH = "/WEB-INF/lib/resources.jar";
+
+    private static final String IMPLEMENTATION_TITLE = "Implementation-Title";
+
+    private final StubBundle testBundle = new StubBundle();
+
+    private File jar;
+
+    private BundleJarResourceSet bundleJarResourceSet;
+
+    @Before
+    public void setUp() throws Exception {
+        this.jar = File.createTempFile("resources", ".jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(IMPLEMENTATION_TITLE, "resources");
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(this.jar), manifest)) {
+            for (int i = 0; i < 100; i++) {
+                addEntry(jos, "META-INF/resources/file" + i + ".txt", "content" + i);
+            }
+        }
+        this.testBundle.setLastModified(this.jar.lastModified());
+
+        WebResourceRoot root = createMock(WebResourceRoot.class);
+        expect(root.getState()).andReturn(LifecycleState.NEW);
+        expect(root.getTrackLockedFiles()).andReturn(false).anyTimes();
+        replay(root);
+
+        this.bundleJarResourceSet = new BundleJarResourceSet(root, this.testBundle, "/", this.jar.toURI().toURL().toString(), ARCHIVE_PATH,
+            "/META-INF/resources");
+        this.bundleJarResourceSet.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.bundleJarResourceSet.destroy();
+        this.jar.delete();
+        delete(BundleEntryExtractor.getRevisionDirectory(this.testBundle));
+        BundleEntryExtractor.deleteTemporaryFiles(this.testBundle.getBundleId());
+    }
+
+    @Test
+    public void testGetResource() throws IOException {
+        WebResource webResource = this.bundleJarResourceSet.getResource("/file99.txt");
+        assertTrue(webResource.exists());
+        assertEquals("content99", read(webResource));
+
+        webResource = this.bundleJarResourceSet.getResource("/file0.txt");
+        assertEquals("content0", read(webResource));
+
+        assertFalse(this.bundleJarResourceSet.getResource("/missing.txt").exists());
+    }
+
+    @Test
+    public void testList() {
+        assertEquals(100, this.bundleJarResourceSet.list("/").length);
+        assertTrue(this.bundleJarResourceSet.listWebAppPaths("/").contains("/file42.txt"));
+    }
+
+    @Test
+    public void testManifest() {
+        Manifest manifest = this.bundleJarResourceSet.getResource("/file1.txt").getManifest();
+        assertNotNull(manifest);
+        assertEquals("resources", manifest.getMainAttributes().getValue(IMPLEMENTATION_TITLE));
+    }
+
+    @Test
+    public void testGc() throws IOException {
+        WebResource webResource = this.bundleJarResourceSet.getResource("/file1.txt");
+        assertEquals("content1", read(webResource));
+
+        this.bundleJarResourceSet.gc();
+
+        assertEquals("content1", read(webResource));
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void addEntry(JarOutputStream jos, String name, String content) throws IOException {
+        jos.putNextEntry(new JarEntry(name));
+        jos.write(content.getBytes(StandardCharsets.UTF_8));
+        jos.closeEntry();
+    }
+
+    private static String read(WebResource webResource) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (InputStream is = webResource.getInputStream()) {
+            assertNotNull(is);
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                baos.write(buffer, 0, n);
+            }
+        }
+        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -24,6 +24,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
 
 import org.apache.catalina.LifecycleState;
 import org.apache.catalina.WebResource;
@@ -94,4 +97,21 @@ public class BundleWebResourceSetTests {
         verify(this.root);
     }
 
+    @Test
+    public void testStrongETag() throws Exception {
+        replay(this.root);
+
+        this.bundleWebResourceSet = new BundleWebResourceSet(new BundleWebResource(this.testBundle, this.root), this.root, "/", null, "/");
+
+        byte[] content = Files.readAllBytes(Paths.get("src/test/resources/sub/one.txt"));
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        String expected = "\"" + Long.toHexString(crc.getValue()) + "-" + content.length + "\"";
+
+        assertEquals(expected, this.bundleWebResourceSet.getResource(FILE_NAME).getETag());
+        assertEquals(expected, this.bundleWebResourceSet.getResource(FILE_NAME).getETag());
+        assertTrue(this.bundleWebResourceSet.getResource(DIRECTORY_NAME).getETag().startsWith("W/"));
+
+        verify(this.root);
+    }
 }
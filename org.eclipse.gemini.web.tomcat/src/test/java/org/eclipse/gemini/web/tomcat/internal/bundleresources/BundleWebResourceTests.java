@@ -20,34 +20,51 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Vector;
 
 import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.WebResourceRoot.ResourceSetType;
 import org.eclipse.gemini.web.tomcat.internal.loader.FindEntriesDelegateImpl;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryMetadata;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolverFactory;
 import org.eclipse.virgo.test.stubs.framework.StubBundle;
 import org.junit.Before;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
 import org.osgi.framework.wiring.BundleRevision;
 import org.osgi.framework.wiring.BundleWire;
 import org.osgi.framework.wiring.BundleWiring;
 
 public class BundleWebResourceTests {
 
+    private static final int LOOKUP_ALLOCATION_ITERATIONS = 100000;
+
+    private static final long MAX_BYTES_PER_LOOKUP = 128L;
+
     private final StubBundle testBundle = new StubBundle();
 
     @Before
@@ -128,12 +145,155 @@ public class BundleWebResourceTests {
         assertNotNull(entry.getEntry(""));
         assertNotNull(entry.getEntry("/"));
 
-        assertTrue(entry.getEntry("sub/").getKey().isDirectory());
-        assertTrue(entry.getEntry("sub/another.sub/").getKey().isDirectory());
-        assertTrue(entry.getEntry(".").getKey().isDirectory());
-        assertTrue(entry.getEntry("sub/.").getKey().isDirectory());
-        assertTrue(entry.getEntry("").getKey().isDirectory());
-        assertTrue(entry.getEntry("/").getKey().isDirectory());
+        assertTrue(entry.getEntry("sub/").isDirectory());
+        assertTrue(entry.getEntry("sub/another.sub/").isDirectory());
+        assertTrue(entry.getEntry(".").isDirectory());
+        assertTrue(entry.getEntry("sub/.").isDirectory());
+        assertTrue(entry.getEntry("").isDirectory());
+        assertTrue(entry.getEntry("/").isDirectory());
+    }
+
+    @Test
+    public void testEntryLookupsAreCached() throws Exception {
+        Bundle bundle = createMock(Bundle.class);
+        expect(bundle.adapt(BundleRevision.class)).andReturn(null);
+        expect(bundle.getState()).andReturn(Bundle.ACTIVE).anyTimes();
+        List<URL> entries = new ArrayList<>();
+        entries.add(Paths.get("src/test/resources/sub/one.txt").toUri().toURL());
+        expect(bundle.findEntries("sub", "one.txt", false)).andReturn(Collections.enumeration(entries));
+        expect(bundle.findEntries("sub", "missing.txt", false)).andReturn(null);
+
+        replay(bundle);
+
+        WebResourceRoot root = createMock(WebResourceRoot.class);
+        BundleWebResource entry = new BundleWebResource(bundle, root);
+
+        assertNotNull(entry.getNamedEntry("sub/one.txt"));
+        assertNotNull(entry.getNamedEntry("sub/one.txt"));
+        assertNull(entry.getNamedEntry("sub/missing.txt"));
+        assertNull(entry.getNamedEntry("sub/missing.txt"));
+
+        assertEquals(2, entry.getEntryCache().getHitCount());
+
+        verify(bundle);
+    }
+
+    @Test
+    public void testEntryLookupsOfBundleLocationDirectoryAreCached() {
+        final BundleEntryIndex entryIndex = BundleEntryIndex.build(this.testBundle, Collections.<Bundle> emptyList(),
+            BundleFileResolverFactory.createBundleFileResolver());
+        WebResourceRoot root = new BundleWebResourceRoot(this.testBundle) {
+
+            @Override
+            BundleEntryIndex getEntryIndex() {
+                return entryIndex;
+            }
+        };
+        BundleWebResource entry = new BundleWebResource(this.testBundle, root,
+            new DirectoryBundleFileResolver(new File("src/test/resources")));
+
+        // The index is not used for a bundle installed from a directory, its lookups are cached for a limited time
+        assertNotNull(entry.getEntry("sub/"));
+        assertNotNull(entry.getEntry("sub/"));
+        assertEquals(1, entry.getEntryCache().getHitCount());
+        assertEquals(1, entry.getEntryCache().getMissCount());
+    }
+
+    @Test
+    public void testEntryLookupCacheClearedOnUpdate() {
+        BundleWebResourceRoot root = new BundleWebResourceRoot(this.testBundle);
+        root.createWebResourceSet(ResourceSetType.PRE, "/", "", "sub/one.txt", "/");
+        assertEquals(1, root.getLookupCacheSize());
+
+        root.getBundleContentListener().bundleChanged(new BundleEvent(BundleEvent.UPDATED, this.testBundle));
+        assertEquals(0, root.getLookupCacheSize());
+    }
+
+    @Test
+    public void testLookupAllocation() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled());
+
+        final BundleEntryIndex entryIndex = BundleEntryIndex.build(this.testBundle, Collections.<Bundle> emptyList(),
+            BundleFileResolverFactory.createBundleFileResolver());
+        WebResourceRoot root = new BundleWebResourceRoot(this.testBundle) {
+
+            @Override
+            BundleEntryIndex getEntryIndex() {
+                return entryIndex;
+            }
+        };
+        BundleWebResource entry = new BundleWebResource(this.testBundle, root);
+
+        for (int i = 0; i < LOOKUP_ALLOCATION_ITERATIONS; i++) {
+            assertNotNull(entry.getNamedEntry("sub/one.txt"));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < LOOKUP_ALLOCATION_ITERATIONS; i++) {
+            assertNotNull(entry.getNamedEntry("sub/one.txt"));
+        }
+        long allocatedPerLookup = (allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / LOOKUP_ALLOCATION_ITERATIONS;
+
+        // An indexed lookup should allocate no more than the returned resource
+        assertTrue("Allocated " + allocatedPerLookup + " bytes per lookup", allocatedPerLookup <= MAX_BYTES_PER_LOOKUP);
+    }
+
+    @Test
+    public void testEntryIndexNotUsedForBundleLocationDirectory() throws MalformedURLException {
+        final BundleEntryIndex entryIndex = BundleEntryIndex.build(this.testBundle, Collections.<Bundle> emptyList(),
+            BundleFileResolverFactory.createBundleFileResolver());
+        WebResourceRoot root = new BundleWebResourceRoot(this.testBundle) {
+
+            @Override
+            BundleEntryIndex getEntryIndex() {
+                return entryIndex;
+            }
+        };
+
+        // A directory which has been added to the exploded bundle after the index has been built
+        this.testBundle.addEntry("late/", new File("src/test/resources/sub/").toURI().toURL());
+
+        BundleWebResource indexedEntry = new BundleWebResource(this.testBundle, root);
+        assertNull(indexedEntry.getEntry("late/"));
+
+        BundleWebResource directoryEntry = new BundleWebResource(this.testBundle, root,
+            new DirectoryBundleFileResolver(new File("src/test/resources")));
+        assertNotNull(directoryEntry.getEntry("late/"));
+    }
+
+    @Test
+    public void testSharedContentStream() throws IOException {
+        SharedResourceCache sharedCache = new SharedResourceCache();
+        sharedCache.setMaxMemory(SharedResourceCache.SLAB_SIZE);
+        BundleWebResourceRoot root = new BundleWebResourceRoot(this.testBundle);
+        root.setSharedResourceCache(sharedCache);
+        BundleWebResource entry = new BundleWebResource(this.testBundle, root).getEntry("sub/one.txt");
+        byte[] expected = Files.readAllBytes(Paths.get("src/test/resources/sub/one.txt"));
+        assumeTrue(expected.length > 1);
+
+        // The first read stores the content in the shared cache, the second one streams it from there
+        assertArrayEquals(expected, readFully(entry.getInputStream()));
+        assertEquals(0, sharedCache.getHitCount());
+        assertArrayEquals(expected, readFully(entry.getInputStream()));
+        assertEquals(1, sharedCache.getHitCount());
+
+        // The rest of the content is read from the bundle if it is evicted while being streamed
+        try (InputStream is = entry.getInputStream()) {
+            byte[] actual = new byte[expected.length];
+            assertEquals(1, is.read(actual, 0, 1));
+            sharedCache.remove(this.testBundle.getBundleId());
+            int pos = 1;
+            int n;
+            while (pos < actual.length && (n = is.read(actual, pos, actual.length - pos)) > 0) {
+                pos += n;
+            }
+            assertArrayEquals(expected, actual);
+            assertEquals(-1, is.read());
+        }
     }
 
     @Test
@@ -141,41 +301,74 @@ public class BundleWebResourceTests {
         WebResourceRoot root = createMock(WebResourceRoot.class);
         BundleWebResource entry = new BundleWebResource(this.testBundle, root);
 
-        Entry<BundleWebResource, URL> e = entry.getEntry("/");
-        assertEquals("/", e.getKey().getName());
+        BundleWebResource e = entry.getEntry("/");
+        assertEquals("/", e.getName());
 
         e = entry.getEntry("/sub/");
-        assertEquals("sub", e.getKey().getName());
+        assertEquals("sub", e.getName());
 
         e = entry.getEntry("/sub/one.txt");
-        assertEquals("one.txt", e.getKey().getName());
+        assertEquals("one.txt", e.getName());
 
         e = entry.getEntry("");
-        assertEquals("/", e.getKey().getName());
+        assertEquals("/", e.getName());
 
         e = entry.getEntry("sub/");
-        assertEquals("sub", e.getKey().getName());
+        assertEquals("sub", e.getName());
 
         e = entry.getEntry("sub/one.txt");
-        assertEquals("one.txt", e.getKey().getName());
+        assertEquals("one.txt", e.getName());
 
         e = entry.getEntry("/a/");
-        assertEquals("a", e.getKey().getName());
+        assertEquals("a", e.getName());
 
         e = entry.getEntry("/a/b/");
-        assertEquals("b", e.getKey().getName());
+        assertEquals("b", e.getName());
 
         e = entry.getEntry("/a/b/c.txt");
-        assertEquals("c.txt", e.getKey().getName());
+        assertEquals("c.txt", e.getName());
 
         e = entry.getEntry("a/");
-        assertEquals("a", e.getKey().getName());
+        assertEquals("a", e.getName());
 
         e = entry.getEntry("a/b/");
-        assertEquals("b", e.getKey().getName());
+        assertEquals("b", e.getName());
 
         e = entry.getEntry("a/b/c.txt");
-        assertEquals("c.txt", e.getKey().getName());
+        assertEquals("c.txt", e.getName());
+    }
+
+    @Test
+    public void testUnreadableContent() throws Exception {
+        Bundle bundle = createMock(Bundle.class);
+        expect(bundle.adapt(BundleRevision.class)).andReturn(null);
+        expect(bundle.getState()).andReturn(Bundle.ACTIVE).anyTimes();
+        List<URL> entries = new ArrayList<>();
+        entries.add(new File("src/test/resources/sub/missing.txt").toURI().toURL());
+        expect(bundle.findEntries("sub", "missing.txt", false)).andReturn(Collections.enumeration(entries));
+
+        replay(bundle);
+
+        WebResourceRoot root = createMock(WebResourceRoot.class);
+        BundleWebResource entry = new BundleWebResource(bundle, root).getEntry("sub/missing.txt");
+
+        assertNotNull(entry);
+        assertNull(entry.getContent());
+        assertNull(entry.getInputStream());
+
+        verify(bundle);
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        try (InputStream in = is) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
     }
 
     private BundleWebResource findByPath(List<BundleWebResource> entries, String entry) {
@@ -209,4 +402,23 @@ public class BundleWebResourceTests {
         assertNotNull(findByPath(list, "one.txt"));
         assertNotNull(findByPath(list, "another.sub"));
     }
+
+    private static final class DirectoryBundleFileResolver implements BundleFileResolver {
+
+        private final File directory;
+
+        private DirectoryBundleFileResolver(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public File resolve(Bundle bundle) {
+            return this.directory;
+        }
+
+        @Override
+        public BundleEntryMetadata resolveBundleEntryMetadata(Bundle bundle, String path) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.catalina.WebResource;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Test;
+
+public class CompressedResourceCacheTests {
+
+    private static final String PATH = "/js/app.js";
+
+    private static final String MIME_TYPE = "application/javascript";
+
+    private final StubBundle testBundle = new StubBundle();
+
+    private final CompressedResourceCache compressedResourceCache = new CompressedResourceCache(this.testBundle);
+
+    @After
+    public void tearDown() {
+        delete(BundleEntryExtractor.getRevisionDirectory(this.testBundle));
+        BundleEntryExtractor.deleteTemporaryFiles(this.testBundle.getBundleId());
+    }
+
+    @Test
+    public void testCompressOnce() throws IOException {
+        byte[] content = createContent(4096);
+        WebResource resource = createResource(content);
+        replay(resource);
+
+        File file = this.compressedResourceCache.getCompressedFile(PATH, resource, MIME_TYPE);
+        assertNotNull(file);
+        assertArrayEquals(content, decompress(file));
+
+        assertEquals(file, this.compressedResourceCache.getCompressedFile(PATH, resource, MIME_TYPE));
+
+        verify(resource);
+    }
+
+    @Test
+    public void testNotCompressible() throws IOException {
+        WebResource resource = createMock(WebResource.class);
+        expect(resource.exists()).andReturn(true);
+        expect(resource.isFile()).andReturn(true);
+        replay(resource);
+
+        assertNull(this.compressedResourceCache.getCompressedFile("/image.png", resource, "image/png"));
+
+        verify(resource);
+    }
+
+    @Test
+    public void testTooSmall() throws IOException {
+        WebResource resource = createMock(WebResource.class);
+        expect(resource.exists()).andReturn(true);
+        expect(resource.isFile()).andReturn(true);
+        expect(resource.getContentLength()).andReturn(Long.valueOf(CompressedResourceCache.DEFAULT_MIN_SIZE - 1));
+        replay(resource);
+
+        assertNull(this.compressedResourceCache.getCompressedFile(PATH, resource, MIME_TYPE));
+
+        verify(resource);
+    }
+
+    private static WebResource createResource(byte[] content) {
+        WebResource resource = createMock(WebResource.class);
+        expect(resource.exists()).andReturn(true).times(2);
+        expect(resource.isFile()).andReturn(true).times(2);
+        expect(resource.getContentLength()).andReturn(Long.valueOf(content.length)).times(2);
+        expect(resource.getInputStream()).andReturn(new ByteArrayInputStream(content));
+        return resource;
+    }
+
+    private static byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) 'a');
+        return content;
+    }
+
+    private static byte[] decompress(File file) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                baos.write(buffer, 0, n);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
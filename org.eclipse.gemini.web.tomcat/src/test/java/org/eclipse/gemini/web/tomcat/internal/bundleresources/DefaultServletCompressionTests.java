@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Vector;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.servlets.DefaultServlet;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.TomcatURLStreamHandlerFactory;
+import org.eclipse.gemini.web.tomcat.internal.loader.FindEntriesDelegateImpl;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultServletCompressionTests {
+
+    private static final String MIME_TYPE = "application/javascript";
+
+    private final StubBundle testBundle = new StubBundle();
+
+    private final byte[] content = createContent(4096);
+
+    private File baseDir;
+
+    private Tomcat tomcat;
+
+    private BundleWebResourceRoot root;
+
+    @Before
+    public void setUp() throws IOException {
+        this.baseDir = Files.createTempDirectory("gzip").toFile();
+        File js = new File(this.baseDir, "js");
+        js.mkdir();
+        File original = new File(js, "app.js");
+        try (OutputStream os = new FileOutputStream(original)) {
+            os.write(this.content);
+        }
+        File precompressed = new File(js, "pre.js");
+        try (OutputStream os = new FileOutputStream(precompressed)) {
+            os.write(this.content);
+        }
+        File variant = new File(js, "pre.js.gz");
+        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(variant))) {
+            os.write(this.content);
+        }
+
+        this.testBundle.addEntryPaths("", createPathsEnumeration("js/"));
+        this.testBundle.addEntryPaths("js/", createPathsEnumeration("js/app.js", "js/pre.js", "js/pre.js.gz"));
+        addEntry("js/", js);
+        addEntry("js/app.js", original);
+        addEntry("js/pre.js", precompressed);
+        addEntry("js/pre.js.gz", variant);
+        this.testBundle.setFindEntriesDelegate(new FindEntriesDelegateImpl(this.testBundle));
+    }
+
+    @After
+    public void tearDown() throws LifecycleException {
+        if (this.tomcat != null) {
+            this.tomcat.stop();
+            this.tomcat.destroy();
+        }
+        delete(BundleEntryExtractor.getRevisionDirectory(this.testBundle));
+        BundleEntryExtractor.deleteTemporaryFiles(this.testBundle.getBundleId());
+        delete(this.baseDir);
+    }
+
+    @Test
+    public void testPrecompressedVariant() throws Exception {
+        startTomcat(true, false);
+
+        HttpURLConnection connection = get("/js/pre.js", true);
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertArrayEquals(this.content, readFully(new GZIPInputStream(connection.getInputStream())));
+    }
+
+    @Test
+    public void testLazyCompression() throws Exception {
+        startTomcat(true, true);
+
+        HttpURLConnection connection = get("/js/app.js", true);
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertArrayEquals(this.content, readFully(new GZIPInputStream(connection.getInputStream())));
+    }
+
+    @Test
+    public void testIdentityWhenGzipNotAccepted() throws Exception {
+        startTomcat(true, true);
+
+        HttpURLConnection connection = get("/js/pre.js", false);
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertArrayEquals(this.content, readFully(connection.getInputStream()));
+    }
+
+    @Test
+    public void testGzipDisabled() throws Exception {
+        // The default of the global web.xml
+        startTomcat(false, false);
+
+        HttpURLConnection connection = get("/js/pre.js", true);
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertArrayEquals(this.content, readFully(connection.getInputStream()));
+    }
+
+    private void startTomcat(boolean gzip, boolean lazyCompressionEnabled) throws LifecycleException {
+        // The bundle resources do not register the factory which the class loader of the context releases when stopped
+        TomcatURLStreamHandlerFactory.disable();
+
+        this.tomcat = new Tomcat();
+        this.tomcat.setBaseDir(this.baseDir.getAbsolutePath());
+        this.tomcat.setPort(0);
+
+        Context context = this.tomcat.addContext("", null);
+        context.addMimeMapping("js", MIME_TYPE);
+        this.root = new BundleWebResourceRoot(this.testBundle);
+        this.root.setLazyCompressionEnabled(lazyCompressionEnabled);
+        context.setResources(this.root);
+
+        Wrapper wrapper = Tomcat.addServlet(context, "default", new DefaultServlet());
+        wrapper.addInitParameter("gzip", Boolean.toString(gzip));
+        context.addServletMapping("/", "default");
+
+        this.tomcat.start();
+    }
+
+    private HttpURLConnection get(String path, boolean acceptGzip) throws IOException {
+        URL url = new URL("http", "localhost", this.tomcat.getConnector().getLocalPort(), path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (acceptGzip) {
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+        }
+        return connection;
+    }
+
+    private void addEntry(String path, File file) throws IOException {
+        URL url = file.toURI().toURL();
+        this.testBundle.addEntry(path, url);
+        this.testBundle.addEntry("/" + path, url);
+    }
+
+    private static byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) 'a');
+        return content;
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        try (InputStream in = is) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static Enumeration<String> createPathsEnumeration(String... paths) {
+        Vector<String> vector = new Vector<>();
+        for (String path : paths) {
+            vector.add(path);
+        }
+        return vector.elements();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import org.apache.catalina.WebResource;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryMetadata;
+import org.eclipse.gemini.web.tomcat.internal.support.BundleFileResolver;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+public class ETagCacheTests {
+
+    private static final int MAX_SIZE = 2;
+
+    private final ETagCache cache = new ETagCache(new BundleArchive(new StubBundle(), new NoArchiveBundleFileResolver()), MAX_SIZE);
+
+    @Test
+    public void testLeastRecentlyUsedETagIsEvicted() {
+        WebResource one = createResource("one");
+        WebResource two = createResource("two");
+        WebResource three = createResource("three");
+        replay(one, two, three);
+
+        String eTag = this.cache.getETag("/one.txt", one);
+        this.cache.getETag("/two.txt", two);
+        assertEquals(eTag, this.cache.getETag("/one.txt", one));
+        this.cache.getETag("/three.txt", three);
+
+        assertEquals(MAX_SIZE, this.cache.getSize());
+        // one.txt has been used more recently than two.txt, so it is still cached and its content is not read again
+        assertEquals(eTag, this.cache.getETag("/one.txt", one));
+
+        verify(one, two, three);
+    }
+
+    @Test
+    public void testClear() {
+        WebResource one = createResource("one");
+        replay(one);
+
+        this.cache.getETag("/one.txt", one);
+        this.cache.clear();
+
+        assertEquals(0, this.cache.getSize());
+    }
+
+    private static WebResource createResource(String content) {
+        WebResource resource = createMock(WebResource.class);
+        expect(resource.getInputStream()).andReturn(new ByteArrayInputStream(content.getBytes()));
+        return resource;
+    }
+
+    private static final class NoArchiveBundleFileResolver implements BundleFileResolver {
+
+        @Override
+        public File resolve(Bundle bundle) {
+            return null;
+        }
+
+        @Override
+        public BundleEntryMetadata resolveBundleEntryMetadata(Bundle bundle, String path) {
+            return null;
+        }
+    }
+}
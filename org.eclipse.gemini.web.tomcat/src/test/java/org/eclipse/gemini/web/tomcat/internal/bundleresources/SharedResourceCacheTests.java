@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.bundleresources;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedResourceCacheTests {
+
+    private static final int READ_ALLOCATION_ITERATIONS = 1000;
+
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final SharedResourceCache cache = new SharedResourceCache();
+
+    @Before
+    public void setUp() {
+        this.cache.setMaxMemory(SharedResourceCache.SLAB_SIZE);
+    }
+
+    @Test
+    public void testGetAndPut() {
+        byte[] content = createContent(100);
+        assertNull(this.cache.get(1L, 1L, "/index.html"));
+
+        this.cache.put(1L, 1L, "/index.html", content);
+        assertArrayEquals(content, this.cache.get(1L, 1L, "/index.html"));
+        assertNull(this.cache.get(1L, 2L, "/index.html"));
+        assertNull(this.cache.get(2L, 1L, "/index.html"));
+
+        assertEquals(1, this.cache.getEntryCount());
+        assertEquals(100, this.cache.getUsedMemory());
+        assertEquals(SharedResourceCache.SLAB_SIZE, this.cache.getAllocatedMemory());
+        assertEquals(1, this.cache.getHitCount());
+        assertEquals(3, this.cache.getMissCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        this.cache.setMaxMemory(0);
+        assertFalse(this.cache.isCacheable(100));
+
+        this.cache.put(1L, 1L, "/index.html", createContent(100));
+        assertNull(this.cache.get(1L, 1L, "/index.html"));
+        assertEquals(0, this.cache.getAllocatedMemory());
+    }
+
+    @Test
+    public void testMaxEntrySize() {
+        this.cache.setMaxEntrySize(1024);
+        assertTrue(this.cache.isCacheable(1024));
+        assertFalse(this.cache.isCacheable(1025));
+
+        this.cache.put(1L, 1L, "/large.html", createContent(1025));
+        assertNull(this.cache.get(1L, 1L, "/large.html"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        // One slab of the largest size class holds a single entry
+        this.cache.setMaxEntrySize(SharedResourceCache.SLAB_SIZE);
+        this.cache.put(1L, 1L, "/first.bin", createContent(SharedResourceCache.SLAB_SIZE));
+        this.cache.put(1L, 1L, "/second.bin", createContent(SharedResourceCache.SLAB_SIZE));
+
+        assertNull(this.cache.get(1L, 1L, "/first.bin"));
+        assertNotNull(this.cache.get(1L, 1L, "/second.bin"));
+        assertEquals(1, this.cache.getEvictionCount());
+        assertEquals(SharedResourceCache.SLAB_SIZE, this.cache.getAllocatedMemory());
+    }
+
+    @Test
+    public void testEvictionAcrossSizeClasses() {
+        // Fill the budget of one slab with entries of the smallest size class
+        int chunks = SharedResourceCache.SLAB_SIZE / SharedResourceCache.MIN_CHUNK_SIZE;
+        for (int i = 0; i < chunks; i++) {
+            this.cache.put(1L, 1L, "/small" + i + ".txt", createContent(100));
+        }
+        assertEquals(chunks, this.cache.getEntryCount());
+        assertEquals(0, this.cache.getEvictionCount());
+
+        byte[] content = createContent(SharedResourceCache.DEFAULT_MAX_ENTRY_SIZE);
+        this.cache.put(1L, 1L, "/large.bin", content);
+
+        // The small entries have been evicted to free the slab for the larger size class
+        assertArrayEquals(content, this.cache.get(1L, 1L, "/large.bin"));
+        assertNull(this.cache.get(1L, 1L, "/small0.txt"));
+        assertEquals(1, this.cache.getEntryCount());
+        assertEquals(chunks, this.cache.getEvictionCount());
+        assertEquals(SharedResourceCache.SLAB_SIZE, this.cache.getAllocatedMemory());
+
+        // The slab is used for the smallest size class again once it is empty
+        this.cache.remove(1L);
+        this.cache.put(1L, 1L, "/small.txt", createContent(100));
+        assertNotNull(this.cache.get(1L, 1L, "/small.txt"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictionAcrossSizeClasses() {
+        this.cache.setMaxMemory(2L * SharedResourceCache.SLAB_SIZE);
+        this.cache.setMaxEntrySize(SharedResourceCache.SLAB_SIZE);
+        this.cache.put(1L, 1L, "/first.bin", createContent(SharedResourceCache.SLAB_SIZE));
+        this.cache.put(1L, 1L, "/small.txt", createContent(100));
+        assertNotNull(this.cache.get(1L, 1L, "/first.bin"));
+
+        // The least recently used entry is evicted although it belongs to another size class
+        this.cache.put(1L, 1L, "/second.bin", createContent(SharedResourceCache.SLAB_SIZE));
+        assertNull(this.cache.get(1L, 1L, "/small.txt"));
+        assertNotNull(this.cache.get(1L, 1L, "/first.bin"));
+        assertNotNull(this.cache.get(1L, 1L, "/second.bin"));
+        assertEquals(1, this.cache.getEvictionCount());
+    }
+
+    @Test
+    public void testRead() {
+        byte[] content = createContent(1000);
+        assertFalse(this.cache.contains(1L, 1L, "/index.html"));
+        this.cache.put(1L, 1L, "/index.html", content);
+        assertTrue(this.cache.contains(1L, 1L, "/index.html"));
+
+        byte[] buffer = new byte[300];
+        assertEquals(300, this.cache.read(1L, 1L, "/index.html", 0, buffer, 0, 300));
+        assertArrayEquals(Arrays.copyOfRange(content, 0, 300), buffer);
+        assertEquals(100, this.cache.read(1L, 1L, "/index.html", 900, buffer, 0, 300));
+        assertArrayEquals(Arrays.copyOfRange(content, 900, 1000), Arrays.copyOfRange(buffer, 0, 100));
+        assertEquals(-1, this.cache.read(1L, 1L, "/index.html", 1000, buffer, 0, 300));
+
+        this.cache.remove(1L);
+        assertEquals(SharedResourceCache.NOT_CACHED, this.cache.read(1L, 1L, "/index.html", 0, buffer, 0, 300));
+        assertEquals(1, this.cache.getHitCount());
+        assertEquals(1, this.cache.getMissCount());
+    }
+
+    @Test
+    public void testReadAllocation() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled());
+
+        int size = SharedResourceCache.DEFAULT_MAX_ENTRY_SIZE;
+        this.cache.put(1L, 1L, "/large.bin", createContent(size));
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        for (int i = 0; i < READ_ALLOCATION_ITERATIONS; i++) {
+            readFully(size, buffer);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < READ_ALLOCATION_ITERATIONS; i++) {
+            readFully(size, buffer);
+        }
+        long allocatedPerRead = (allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / READ_ALLOCATION_ITERATIONS;
+
+        // Streaming the content must not copy all of it to the heap, as get() does
+        assertTrue("Allocated " + allocatedPerRead + " bytes per read of " + size + " bytes", allocatedPerRead < size / 4);
+    }
+
+    @Test
+    public void testRemove() {
+        this.cache.put(1L, 1L, "/index.html", createContent(100));
+        this.cache.put(2L, 1L, "/index.html", createContent(200));
+
+        this.cache.remove(1L);
+        assertNull(this.cache.get(1L, 1L, "/index.html"));
+        assertNotNull(this.cache.get(2L, 1L, "/index.html"));
+        assertEquals(200, this.cache.getUsedMemory());
+    }
+
+    private void readFully(int size, byte[] buffer) {
+        int position = 0;
+        int n;
+        while ((n = this.cache.read(1L, 1L, "/large.bin", position, buffer, 0, buffer.length)) > 0) {
+            position += n;
+        }
+        assertEquals(size, position);
+    }
+
+    private static byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+}
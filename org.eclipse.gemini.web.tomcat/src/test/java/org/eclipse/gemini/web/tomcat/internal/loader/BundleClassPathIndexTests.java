@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.Constants;
+
+public class BundleClassPathIndexTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StubBundle testBundle = new StubBundle();
+
+    private File first;
+
+    private File second;
+
+    @Before
+    public void setUp() throws Exception {
+        this.first = createJar("first.jar", "a/A.class", "shared.txt");
+        this.second = createJar("second.jar", "b/B.class", "shared.txt");
+        this.testBundle.addHeader(Constants.BUNDLE_CLASSPATH, "WEB-INF/classes, WEB-INF/lib/second.jar, WEB-INF/lib/first.jar");
+        this.testBundle.addEntry("WEB-INF/lib/first.jar", this.first.toURI().toURL());
+        this.testBundle.addEntry("WEB-INF/lib/second.jar", this.second.toURI().toURL());
+    }
+
+    @After
+    public void tearDown() {
+        delete(BundleEntryExtractor.getRevisionDirectory(this.testBundle));
+        BundleEntryExtractor.deleteTemporaryFiles(this.testBundle.getBundleId());
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        BundleClassPathIndex index = BundleClassPathIndex.build(this.testBundle);
+        assertEquals(2, index.getJarCount());
+        assertEquals(Arrays.asList("b/B.class", "shared.txt"), index.getEntryNames(0));
+
+        // The JARs are read from their local copies
+        URL url = index.findResource("a/A.class");
+        assertTrue(url.toString().startsWith("jar:file:"));
+        assertTrue(url.toString().endsWith("first.jar!/a/A.class"));
+        assertEquals(this.first.length(), new File(new URL(url.getPath().substring(0, url.getPath().indexOf("!/"))).toURI()).length());
+        assertNull(index.findResource("c/C.class"));
+
+        // The JARs are searched in the declared order
+        List<URL> shared = index.findResources("shared.txt");
+        assertEquals(2, shared.size());
+        assertTrue(shared.get(0).toString().contains("second.jar"));
+        assertTrue(shared.get(1).toString().contains("first.jar"));
+        assertEquals(shared.get(0), index.findResource("shared.txt"));
+    }
+
+    @Test
+    public void testIndexIsStoredPerRevision() throws Exception {
+        BundleClassPathIndex.create(this.testBundle);
+
+        // The stored index is used without reading the JARs again
+        createJar("second.jar", "b/Other.class");
+        BundleClassPathIndex index = BundleClassPathIndex.create(this.testBundle);
+        assertEquals(Arrays.asList("b/B.class", "shared.txt"), index.getEntryNames(0));
+        assertTrue(index.findResource("a/A.class") != null);
+    }
+
+    @Test
+    public void testWebappClassLoaderLookup() throws Exception {
+        // The stub bundle finds no resources, as the framework does for a bundle which cannot be resolved
+        BundleWebappClassLoader classLoader = new BundleWebappClassLoader(this.testBundle, createNiceMock(ClassLoaderCustomizer.class));
+        try {
+            URL url = classLoader.getResource("a/A.class");
+            assertTrue(url.toString().endsWith("first.jar!/a/A.class"));
+            assertNull(classLoader.getResource("c/C.class"));
+
+            List<URL> shared = Collections.list(classLoader.getResources("shared.txt"));
+            assertEquals(2, shared.size());
+            assertTrue(shared.get(0).toString().contains("second.jar"));
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    private File createJar(String name, String... entries) throws IOException {
+        File jar = new File(this.folder.getRoot(), name);
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                jarOutputStream.putNextEntry(new JarEntry(entry));
+                jarOutputStream.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -23,9 +23,13 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Set;
 
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
 import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
 import org.junit.Test;
 import org.osgi.framework.Constants;
 
@@ -35,6 +39,11 @@ public class BundleClassPathURLExtractorTests {
 
     private final StubBundle bundle = new StubBundle();
 
+    @After
+    public void tearDown() {
+        BundleEntryExtractor.deleteTemporaryFiles(this.bundle.getBundleId());
+    }
+
     @Test
     public void extraction() throws MalformedURLException, URISyntaxException {
         this.bundle.addHeader(Constants.BUNDLE_CLASSPATH, ".,foo.jar,cp/bar.jar");
@@ -60,4 +69,17 @@ public class BundleClassPathURLExtractorTests {
         assertEquals(1, classPathURLs.size());
         assertTrue(classPathURLs.contains(new URI("jar:file:cp/bar.jar!/")));
     }
+
+    @Test
+    public void extractionKeepsDeclaredOrder() throws MalformedURLException, URISyntaxException {
+        this.bundle.addHeader(Constants.BUNDLE_CLASSPATH, "WEB-INF/classes, WEB-INF/lib/z.jar;x=y, WEB-INF/lib/a.jar, WEB-INF/lib/m.jar");
+
+        this.bundle.addEntry("WEB-INF/lib/z.jar", new URL("file:WEB-INF/lib/z.jar"));
+        this.bundle.addEntry("WEB-INF/lib/a.jar", new URL("file:WEB-INF/lib/a.jar"));
+        this.bundle.addEntry("WEB-INF/lib/m.jar", new URL("file:WEB-INF/lib/m.jar"));
+
+        Set<URI> classPathURLs = BundleClassPathURLExtractor.extractBundleClassPathURLs(this.bundle);
+        assertEquals(Arrays.asList(new URI("jar:file:WEB-INF/lib/z.jar!/"), new URI("jar:file:WEB-INF/lib/a.jar!/"), new URI(
+            "jar:file:WEB-INF/lib/m.jar!/")), new ArrayList<>(classPathURLs));
+    }
 }
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Test;
+
+public class CachingClassFileTransformerTests {
+
+    private static final byte[] ORIGINAL = { 1, 2, 3 };
+
+    private static final byte[] WOVEN = { 1, 2, 3, 4 };
+
+    private final StubBundle testBundle = new StubBundle();
+
+    private final CountingTransformer transformer = new CountingTransformer();
+
+    @After
+    public void tearDown() {
+        delete(BundleEntryExtractor.getRevisionDirectory(this.testBundle));
+        BundleEntryExtractor.deleteTemporaryFiles(this.testBundle.getBundleId());
+    }
+
+    @Test
+    public void testTransformedClassIsReused() throws Exception {
+        CachingClassFileTransformer cachingTransformer = new CachingClassFileTransformer(this.transformer, this.testBundle);
+        assertArrayEquals(WOVEN, cachingTransformer.transform(null, "a/Woven", null, null, ORIGINAL));
+        assertEquals(1, this.transformer.count.get());
+
+        // The next start of the web application creates a new transformer
+        cachingTransformer = new CachingClassFileTransformer(this.transformer, this.testBundle);
+        assertArrayEquals(WOVEN, cachingTransformer.transform(null, "a/Woven", null, null, ORIGINAL));
+        assertEquals(1, this.transformer.count.get());
+
+        // Changed class bytes are transformed again
+        assertArrayEquals(WOVEN, cachingTransformer.transform(null, "a/Woven", null, null, new byte[] { 5 }));
+        assertEquals(2, this.transformer.count.get());
+    }
+
+    @Test
+    public void testUnchangedClassIsReused() throws Exception {
+        CachingClassFileTransformer cachingTransformer = new CachingClassFileTransformer(this.transformer, this.testBundle);
+        assertNull(cachingTransformer.transform(null, "a/Unchanged", null, null, ORIGINAL));
+        assertNull(cachingTransformer.transform(null, "a/Unchanged", null, null, ORIGINAL));
+        assertEquals(1, this.transformer.count.get());
+    }
+
+    @Test
+    public void testRedefinedClassIsNotCached() throws Exception {
+        CachingClassFileTransformer cachingTransformer = new CachingClassFileTransformer(this.transformer, this.testBundle);
+        cachingTransformer.transform(null, "a/Woven", String.class, null, ORIGINAL);
+        cachingTransformer.transform(null, "a/Woven", String.class, null, ORIGINAL);
+        assertEquals(2, this.transformer.count.get());
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static final class CountingTransformer implements ClassFileTransformer {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain,
+            byte[] classfileBuffer) {
+            this.count.incrementAndGet();
+            return className.endsWith("Woven") ? WOVEN : null;
+        }
+    }
+}
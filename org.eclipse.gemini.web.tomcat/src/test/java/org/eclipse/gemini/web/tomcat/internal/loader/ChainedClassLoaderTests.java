@@ -16,12 +16,33 @@
 
 package org.eclipse.gemini.web.tomcat.internal.loader;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.easymock.EasyMock.createNiceMock;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
 import org.junit.Test;
 
 public class ChainedClassLoaderTests {
@@ -47,8 +68,185 @@ public class ChainedClassLoaderTests {
         assertNotNull(resources);
     }
 
+    @Test
+    public void testConcurrentLoadClass() throws Exception {
+        final ChainedClassLoader loader = new ChainedClassLoader(classLoaderFor(Test.class), classLoaderFor(ChainedClassLoaderTests.class));
+        final String[] classNames = { Test.class.getName(), org.junit.Assert.class.getName(), org.junit.Before.class.getName(),
+            org.junit.After.class.getName(), org.junit.runner.JUnitCore.class.getName(), org.junit.runner.Result.class.getName(),
+            ChainedClassLoaderTests.class.getName() };
+
+        int threadCount = 16;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Class<?>[]>> results = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                results.add(executor.submit(new Callable<Class<?>[]>() {
+
+                    @Override
+                    public Class<?>[] call() throws Exception {
+                        barrier.await();
+                        Class<?>[] classes = new Class<?>[classNames.length];
+                        for (int j = 0; j < classNames.length; j++) {
+                            // Class.forName lets the VM lock the initiating loader unless it is parallel capable
+                            classes[j] = Class.forName(classNames[j], false, loader);
+                        }
+                        return classes;
+                    }
+                }));
+            }
+
+            Class<?>[] expected = results.get(0).get();
+            for (Future<Class<?>[]> result : results) {
+                Class<?>[] classes = result.get();
+                assertEquals(classNames.length, classes.length);
+                for (int j = 0; j < classes.length; j++) {
+                    assertSame(expected[j], classes[j]);
+                    assertEquals(classNames[j], classes[j].getName());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelCapable() throws Exception {
+        assertParallelCapable(new ChainedClassLoader(classLoaderFor(Test.class)));
+        assertParallelCapable(BundleDelegatingClassLoader.createBundleClassLoaderFor(new StubBundle()));
+        BundleWebappClassLoader webappClassLoader = new BundleWebappClassLoader(new StubBundle(), createNiceMock(ClassLoaderCustomizer.class));
+        try {
+            assertParallelCapable(webappClassLoader);
+        } finally {
+            webappClassLoader.close();
+        }
+    }
+
+    private static void assertParallelCapable(ClassLoader loader) throws Exception {
+        try {
+            Method isRegisteredAsParallelCapable = ClassLoader.class.getMethod("isRegisteredAsParallelCapable");
+            assertTrue(loader.getClass().getName(), (Boolean) isRegisteredAsParallelCapable.invoke(loader));
+        } catch (NoSuchMethodException e) {
+            // Before Java 9 a parallel capable class loader is recognised by its lock objects per class name
+            Method getClassLoadingLock = ClassLoader.class.getDeclaredMethod("getClassLoadingLock", String.class);
+            getClassLoadingLock.setAccessible(true);
+            Object lock = getClassLoadingLock.invoke(loader, "org.example.A");
+            assertNotSame(loader, lock);
+            assertNotSame(lock, getClassLoadingLock.invoke(loader, "org.example.B"));
+        }
+    }
+
+    @Test
+    public void testNegativeLookupCache() throws Exception {
+        CountingClassLoader countingLoader = new CountingClassLoader();
+        ChainedClassLoader loader = new ChainedClassLoader(countingLoader, classLoaderFor(ChainedClassLoaderTests.class));
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                loader.loadClass("org.example.Missing");
+            } catch (ClassNotFoundException e) {
+                // expected
+            }
+        }
+        assertEquals(1, countingLoader.count.get());
+        assertEquals(2, loader.getNegativeLookupCacheSize());
+        assertEquals(4, loader.getNegativeLookupCacheHitCount());
+        assertEquals(2, loader.getNegativeLookupCacheMissCount());
+
+        // Classes found by a later delegate are still looked up in the earlier one only once
+        assertNotNull(loader.loadClass(ChainedClassLoaderTests.class.getName()));
+        assertNotNull(loader.loadClass(ChainedClassLoaderTests.class.getName()));
+        assertEquals(2, countingLoader.count.get());
+
+        loader.clearNegativeLookupCache();
+        assertEquals(0, loader.getNegativeLookupCacheSize());
+        try {
+            loader.loadClass("org.example.Missing");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+        assertEquals(3, countingLoader.count.get());
+    }
+
+    @Test
+    public void testDelegateMissCounts() throws Exception {
+        CountingClassLoader countingLoader = new CountingClassLoader();
+        ChainedClassLoader loader = new ChainedClassLoader(countingLoader, classLoaderFor(ChainedClassLoaderTests.class));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                loader.loadClass("org.example.Missing");
+            } catch (ClassNotFoundException e) {
+                // expected
+            }
+        }
+        assertNotNull(loader.loadClass(ChainedClassLoaderTests.class.getName()));
+
+        // Misses answered by the negative lookup cache are counted as well
+        List<Long> missCounts = new ArrayList<>(loader.getDelegateMissCounts().values());
+        assertEquals(Arrays.asList(3L, 2L), missCounts);
+    }
+
+    @Test
+    public void testSplitPackagePrecedence() throws Exception {
+        Map<String, Class<?>> firstClasses = new HashMap<>();
+        firstClasses.put("org.example.Shared", String.class);
+        Map<String, Class<?>> secondClasses = new HashMap<>();
+        secondClasses.put("org.example.Shared", Integer.class);
+        secondClasses.put("org.example.Other", Long.class);
+        ChainedClassLoader loader = new ChainedClassLoader(new MapClassLoader(firstClasses), new MapClassLoader(secondClasses));
+
+        // The second delegate supplies the first class of the package, the first delegate still takes precedence
+        assertSame(Long.class, loader.loadClass("org.example.Other"));
+        assertSame(String.class, loader.loadClass("org.example.Shared"));
+        assertSame(Long.class, loader.loadClass("org.example.Other"));
+    }
+
+    @Test
+    public void testGetResourcesFromSeveralLoaders() throws Exception {
+        ClassLoader testLoader = classLoaderFor(ChainedClassLoaderTests.class);
+        ChainedClassLoader loader = new ChainedClassLoader(testLoader, classLoaderFor(Test.class), classLoaderFor(ChainedClassLoaderTests.class));
+        List<URL> expected = Collections.list(testLoader.getResources("invalid-server.xml"));
+        assertEquals(expected, Collections.list(loader.getResources("invalid-server.xml")));
+        assertFalse(loader.getResources("missing.xml").hasMoreElements());
+    }
+
     private ClassLoader classLoaderFor(Class<?> cls) {
         URL location = cls.getProtectionDomain().getCodeSource().getLocation();
         return new URLClassLoader(new URL[] { location }, null);
     }
+
+    private static final class MapClassLoader extends ClassLoader {
+
+        private final Map<String, Class<?>> classes;
+
+        private MapClassLoader(Map<String, Class<?>> classes) {
+            super(null);
+            this.classes = classes;
+        }
+
+        @Override
+        public Class<?> loadClass(String name) throws ClassNotFoundException {
+            Class<?> clazz = this.classes.get(name);
+            if (clazz == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return clazz;
+        }
+    }
+
+    private static final class CountingClassLoader extends ClassLoader {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private CountingClassLoader() {
+            super(null);
+        }
+
+        @Override
+        public Class<?> loadClass(String name) throws ClassNotFoundException {
+            this.count.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+    }
 }
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class ClassLoaderLeakDetectorTests {
+
+    @Test
+    public void testLeakedClassLoaderIsReported() {
+        ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(null);
+        detector.setGcCycles(1);
+
+        ClassLoader classLoader = new ClassLoader() {
+        };
+        detector.watch(classLoader, classLoader, "bundle", "/leak", 1, 0, 0, 0);
+        assertEquals(1, detector.getWatchedClassLoaderCount());
+
+        // Young collections do not unload classes
+        detector.check(0, 5, 1000);
+        assertEquals(0, detector.getLeakCount());
+
+        detector.check(1, 6, 2000);
+        assertEquals(1, detector.getLeakCount());
+        assertEquals(1, detector.getLeakedClassLoaders().length);
+
+        // A leak is reported only once
+        detector.check(2, 7, 3000);
+        assertEquals(1, detector.getLeakCount());
+
+        // Keeps the class loader reachable until the end of the test
+        assertNotNull(classLoader);
+    }
+
+    @Test
+    public void testCollectedClassLoaderIsForgotten() {
+        ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(null);
+        detector.watch(new ClassLoader() {
+        }, null, "bundle", "/collected", 1);
+
+        for (int i = 0; i < 10 && detector.getWatchedClassLoaderCount() > 0; i++) {
+            System.gc();
+            detector.check();
+        }
+        assertEquals(0, detector.getWatchedClassLoaderCount());
+        assertEquals(0, detector.getLeakCount());
+    }
+
+    @Test
+    public void testLeakIsReportedAfterMinimumAgeWithoutOldGenerationCollections() {
+        ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(null);
+        detector.setGcCycles(2);
+
+        ClassLoader classLoader = new ClassLoader() {
+        };
+        detector.watch(classLoader, classLoader, "bundle", "/leak", 1, -1, 0, 0);
+
+        detector.check(-1, 2, ClassLoaderLeakDetector.MIN_LEAK_AGE - 1);
+        assertEquals(0, detector.getLeakCount());
+
+        detector.check(-1, 1, ClassLoaderLeakDetector.MIN_LEAK_AGE);
+        assertEquals(0, detector.getLeakCount());
+
+        detector.check(-1, 2, ClassLoaderLeakDetector.MIN_LEAK_AGE);
+        assertEquals(1, detector.getLeakCount());
+
+        assertNotNull(classLoader);
+    }
+
+    @Test
+    public void testG1ConcurrentCyclesAreCounted() {
+        List<GarbageCollectorMXBean> garbageCollectors = Arrays.asList(garbageCollector("G1 Young Generation", 40),
+            garbageCollector("G1 Concurrent GC", 3), garbageCollector("G1 Old Generation", 0));
+        assertEquals(3, ClassLoaderLeakDetector.getGcCount(garbageCollectors, true));
+        assertEquals(43, ClassLoaderLeakDetector.getGcCount(garbageCollectors, false));
+
+        assertEquals(-1, ClassLoaderLeakDetector.getGcCount(Arrays.asList(garbageCollector("G1 Young Generation", 40)), true));
+    }
+
+    @Test
+    public void testOnlyOldGenerationCollectorsAreCounted() {
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("G1 Old Generation"));
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("G1 Concurrent GC"));
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("PS MarkSweep"));
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("MarkSweepCompact"));
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("ConcurrentMarkSweep"));
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("ZGC Cycles"));
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("ZGC Major Cycles"));
+        assertTrue(ClassLoaderLeakDetector.isOldGenerationCollector("Shenandoah Cycles"));
+
+        assertFalse(ClassLoaderLeakDetector.isOldGenerationCollector("G1 Young Generation"));
+        assertFalse(ClassLoaderLeakDetector.isOldGenerationCollector("PS Scavenge"));
+        assertFalse(ClassLoaderLeakDetector.isOldGenerationCollector("ParNew"));
+        assertFalse(ClassLoaderLeakDetector.isOldGenerationCollector("Copy"));
+        assertFalse(ClassLoaderLeakDetector.isOldGenerationCollector("ZGC Minor Cycles"));
+        assertFalse(ClassLoaderLeakDetector.isOldGenerationCollector("ZGC Pauses"));
+    }
+
+    private static GarbageCollectorMXBean garbageCollector(final String name, final long collectionCount) {
+        return new GarbageCollectorMXBean() {
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public long getCollectionCount() {
+                return collectionCount;
+            }
+
+            @Override
+            public long getCollectionTime() {
+                return 0;
+            }
+
+            @Override
+            public boolean isValid() {
+                return true;
+            }
+
+            @Override
+            public String[] getMemoryPoolNames() {
+                return new String[0];
+            }
+
+            @Override
+            public ObjectName getObjectName() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.gemini.web.tomcat.spi.ClassLoadingStatistics;
+import org.junit.Test;
+
+public class ClassLoadingStatisticsRecorderTests {
+
+    @Test
+    public void testCounters() {
+        ClassLoadingStatisticsRecorder recorder = new ClassLoadingStatisticsRecorder();
+        recorder.recordLoadClass("a.A", TimeUnit.MILLISECONDS.toNanos(2), true);
+        recorder.recordLoadClass("a.B", TimeUnit.MILLISECONDS.toNanos(3), false);
+        recorder.recordResourceLookup();
+
+        ClassLoadingStatistics statistics = recorder.snapshot(Collections.singletonMap("0: loader", 1L));
+        assertEquals(1, statistics.getLoadClassCount());
+        assertEquals(1, statistics.getClassNotFoundCount());
+        assertEquals(5, statistics.getLoadClassTime());
+        assertEquals(1, statistics.getResourceLookupCount());
+        assertEquals(Long.valueOf(1), statistics.getDelegateMissCounts().get("0: loader"));
+    }
+
+    @Test
+    public void testSlowestClassLoads() {
+        ClassLoadingStatisticsRecorder recorder = new ClassLoadingStatisticsRecorder();
+        for (int i = 1; i <= ClassLoadingStatisticsRecorder.SLOWEST_CLASS_LOADS + 5; i++) {
+            recorder.recordLoadClass("a.C" + i, TimeUnit.MILLISECONDS.toNanos(i), true);
+        }
+        recorder.recordLoadClass("a.Slowest", TimeUnit.MILLISECONDS.toNanos(100), true);
+        recorder.recordLoadClass("a.Fast", TimeUnit.MILLISECONDS.toNanos(1), true);
+
+        List<String> slowestClassLoads = recorder.snapshot(Collections.<String, Long> emptyMap()).getSlowestClassLoads();
+        assertEquals(ClassLoadingStatisticsRecorder.SLOWEST_CLASS_LOADS, slowestClassLoads.size());
+        assertEquals("a.Slowest=100", slowestClassLoads.get(0));
+        assertEquals("a.C15=15", slowestClassLoads.get(1));
+        assertEquals("a.C7=7", slowestClassLoads.get(slowestClassLoads.size() - 1));
+    }
+}
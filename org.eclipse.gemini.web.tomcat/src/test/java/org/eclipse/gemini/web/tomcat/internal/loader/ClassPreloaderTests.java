@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.CountDownLatch;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.eclipse.gemini.web.tomcat.internal.support.BundleEntryExtractor;
+import org.eclipse.virgo.test.stubs.framework.FindEntriesDelegate;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.Constants;
+
+public class ClassPreloaderTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StubBundle testBundle = new StubBundle();
+
+    @After
+    public void tearDown() {
+        BundleEntryExtractor.deleteTemporaryFiles(this.testBundle.getBundleId());
+    }
+
+    @Test
+    public void testParsePatterns() {
+        assertEquals(Collections.emptyList(), ClassPreloader.parsePatterns(null));
+        assertEquals(Arrays.asList("*"), ClassPreloader.parsePatterns(" * "));
+        assertEquals(Arrays.asList("com.example.*", "org.example.Foo"), ClassPreloader.parsePatterns("com.example.*, ,org.example.Foo"));
+    }
+
+    @Test
+    public void testMatches() {
+        ClassPreloader preloader = new ClassPreloader(new StubBundle(), getClass().getClassLoader(), Arrays.asList("com.example.*",
+            "org.example.Foo"));
+        assertTrue(preloader.matches("com.example.Bar"));
+        assertTrue(preloader.matches("com.example.sub.Bar"));
+        assertTrue(preloader.matches("org.example.Foo"));
+        assertFalse(preloader.matches("com.examples.Bar"));
+        assertFalse(preloader.matches("org.example.FooBar"));
+    }
+
+    @Test
+    public void testPreloadBundleClassPathClasses() throws Exception {
+        StubBundle bundle = this.testBundle;
+        bundle.addHeader(Constants.BUNDLE_CLASSPATH, "WEB-INF/classes, WEB-INF/lib/test.jar");
+        bundle.addEntry("WEB-INF/lib/test.jar", createJar("org/junit/Test.class", "org/junit/package-info.class", "org/example/Missing.class",
+            "META-INF/versions/9/org/junit/Assert.class").toURI().toURL());
+        bundle.setFindEntriesDelegate(new FindEntriesDelegate() {
+
+            @Override
+            public Enumeration<?> findEntries(String path, String filePattern, boolean recurse) {
+                return null;
+            }
+        });
+
+        ClassPreloader preloader = new ClassPreloader(bundle, getClass().getClassLoader(), Arrays.asList(ClassPreloader.ALL_CLASSES));
+        assertEquals(Arrays.asList("org.junit.Test", "org.example.Missing"), preloader.findJarClasses(BundleClassPathIndex.build(bundle), 0));
+
+        preloader.start();
+        preloader.await(ClassPreloader.DEFAULT_TIMEOUT);
+        assertEquals(1, preloader.getLoadedClassCount());
+    }
+
+    @Test
+    public void testAwaitTimeout() throws Exception {
+        final URL classEntry = new URL("file:/WEB-INF/classes/org/example/Slow.class");
+        this.testBundle.setFindEntriesDelegate(new FindEntriesDelegate() {
+
+            @Override
+            public Enumeration<?> findEntries(String path, String filePattern, boolean recurse) {
+                return Collections.enumeration(Arrays.asList(classEntry));
+            }
+        });
+        final CountDownLatch loading = new CountDownLatch(1);
+        ClassLoader slowClassLoader = new ClassLoader(getClass().getClassLoader()) {
+
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if ("org.example.Slow".equals(name)) {
+                    loading.countDown();
+                    try {
+                        Thread.sleep(Long.MAX_VALUE);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new ClassNotFoundException(name);
+                }
+                return super.loadClass(name, resolve);
+            }
+        };
+
+        ClassPreloader preloader = new ClassPreloader(this.testBundle, slowClassLoader, Arrays.asList(ClassPreloader.ALL_CLASSES));
+        preloader.start();
+        loading.await();
+
+        // The wait is bounded and the preloading which did not complete is stopped
+        long start = System.currentTimeMillis();
+        preloader.await(100L);
+        assertTrue(System.currentTimeMillis() - start < ClassPreloader.DEFAULT_TIMEOUT);
+        assertEquals(0, preloader.getLoadedClassCount());
+    }
+
+    private File createJar(String... entries) throws IOException {
+        File jar = this.folder.newFile("test.jar");
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String entry : entries) {
+                jarOutputStream.putNextEntry(new JarEntry(entry));
+                jarOutputStream.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.eclipse.gemini.web.tomcat.spi.ClassLoaderCustomizer;
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceReference;
+
+public class LookupCacheInvalidatorTests {
+
+    private static final String MISSING_RESOURCE = "missing.txt";
+
+    private final Bundle bundle = new StubBundle();
+
+    private BundleWebappClassLoader classLoader;
+
+    private LookupCacheInvalidator invalidator;
+
+    @Before
+    public void setUp() {
+        this.classLoader = new BundleWebappClassLoader(this.bundle, createNiceMock(ClassLoaderCustomizer.class));
+        this.invalidator = new LookupCacheInvalidator(this.classLoader);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.classLoader.close();
+    }
+
+    @Test
+    public void testRegistration() throws Exception {
+        BundleContext bundleContext = createMock(BundleContext.class);
+        bundleContext.addBundleListener(this.invalidator);
+        bundleContext.addServiceListener(this.invalidator, "(objectClass=" + ClassLoaderCustomizer.class.getName() + ")");
+        bundleContext.removeBundleListener(this.invalidator);
+        bundleContext.removeServiceListener(this.invalidator);
+        replay(bundleContext);
+
+        this.invalidator.register(bundleContext);
+        this.invalidator.unregister();
+
+        verify(bundleContext);
+    }
+
+    @Test
+    public void testUnregisterFromInvalidContext() throws Exception {
+        BundleContext bundleContext = createMock(BundleContext.class);
+        bundleContext.addBundleListener(this.invalidator);
+        bundleContext.addServiceListener(this.invalidator, "(objectClass=" + ClassLoaderCustomizer.class.getName() + ")");
+        bundleContext.removeBundleListener(this.invalidator);
+        expectLastCall().andThrow(new IllegalStateException());
+        replay(bundleContext);
+
+        this.invalidator.register(bundleContext);
+        this.invalidator.unregister();
+
+        verify(bundleContext);
+    }
+
+    @Test
+    public void testBundleResolved() {
+        assertLookupCacheCleared(new BundleEvent(BundleEvent.RESOLVED, new StubBundle()), true);
+    }
+
+    @Test
+    public void testBundleUpdated() {
+        assertLookupCacheCleared(new BundleEvent(BundleEvent.UPDATED, this.bundle), true);
+    }
+
+    @Test
+    public void testBundleStarted() {
+        assertLookupCacheCleared(new BundleEvent(BundleEvent.STARTED, new StubBundle()), false);
+    }
+
+    @Test
+    public void testClassLoaderCustomizerChanged() {
+        assertNull(this.classLoader.getResource(MISSING_RESOURCE));
+        assertEquals(1, this.classLoader.getResourceLookupCacheSize());
+
+        this.invalidator.serviceChanged(new ServiceEvent(ServiceEvent.REGISTERED, createMock(ServiceReference.class)));
+
+        assertEquals(0, this.classLoader.getResourceLookupCacheSize());
+    }
+
+    private void assertLookupCacheCleared(BundleEvent event, boolean cleared) {
+        assertNull(this.classLoader.getResource(MISSING_RESOURCE));
+        assertEquals(1, this.classLoader.getResourceLookupCacheSize());
+
+        this.invalidator.bundleChanged(event);
+
+        assertEquals(cleared ? 0 : 1, this.classLoader.getResourceLookupCacheSize());
+    }
+}
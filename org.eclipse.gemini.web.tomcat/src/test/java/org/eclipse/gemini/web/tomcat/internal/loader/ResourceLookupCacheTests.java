@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ResourceLookupCacheTests {
+
+    private final ResourceLookupCache cache = new ResourceLookupCache();
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        List<URL> urls = Collections.singletonList(new URL("file:/services/javax.xml.bind.JAXBContext"));
+        assertNull(this.cache.get("META-INF/services/javax.xml.bind.JAXBContext"));
+
+        this.cache.put("META-INF/services/javax.xml.bind.JAXBContext", urls);
+        this.cache.put("logging.properties", Collections.<URL> emptyList());
+
+        assertEquals(urls, this.cache.get("META-INF/services/javax.xml.bind.JAXBContext"));
+        List<URL> missing = this.cache.get("logging.properties");
+        assertNotNull(missing);
+        assertTrue(missing.isEmpty());
+
+        assertEquals(2, this.cache.getHitCount());
+        assertEquals(1, this.cache.getMissCount());
+        assertEquals(2, this.cache.getSize());
+    }
+
+    @Test
+    public void testEviction() {
+        this.cache.setMaxSize(2);
+        this.cache.put("a", Collections.<URL> emptyList());
+        this.cache.put("b", Collections.<URL> emptyList());
+        this.cache.get("a");
+        this.cache.put("c", Collections.<URL> emptyList());
+
+        assertNotNull(this.cache.get("a"));
+        assertNull(this.cache.get("b"));
+        assertNotNull(this.cache.get("c"));
+    }
+
+    @Test
+    public void testDisabled() {
+        this.cache.setMaxSize(0);
+        this.cache.put("a", Collections.<URL> emptyList());
+        assertNull(this.cache.get("a"));
+        assertEquals(0, this.cache.getSize());
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+
+public class StaticReferencesCleanerTests {
+
+    private final StubBundle bundle = new StubBundle(7L);
+
+    private final Object singleton = new Object();
+
+    private StaticReferencesCleaner cleaner;
+
+    private BundleContext bundleContext;
+
+    @Before
+    public void setUp() {
+        Holder.value = this.singleton;
+        this.cleaner = new StaticReferencesCleaner(this.bundle, Collections.<Class<?>> singletonList(Holder.class));
+
+        this.bundleContext = createMock(BundleContext.class);
+        this.bundleContext.addBundleListener(this.cleaner);
+        this.bundleContext.removeBundleListener(this.cleaner);
+        replay(this.bundleContext);
+
+        this.cleaner.register(this.bundleContext);
+    }
+
+    @Test
+    public void testStaticsAreIntactWhenTheSameBundleIsRestarted() {
+        this.cleaner.bundleChanged(new BundleEvent(BundleEvent.STOPPED, this.bundle));
+        this.cleaner.bundleChanged(new BundleEvent(BundleEvent.STARTING, this.bundle));
+        assertSame(this.singleton, Holder.value);
+
+        // The restarted web application owns the classes, later changes of the bundle are not watched any more
+        this.cleaner.bundleChanged(new BundleEvent(BundleEvent.UPDATED, this.bundle));
+        assertSame(this.singleton, Holder.value);
+
+        verify(this.bundleContext);
+    }
+
+    @Test
+    public void testStaticsAreClearedWhenTheBundleIsUpdated() {
+        assertClearedOn(BundleEvent.UPDATED);
+    }
+
+    @Test
+    public void testStaticsAreClearedWhenTheBundleIsUnresolved() {
+        assertClearedOn(BundleEvent.UNRESOLVED);
+    }
+
+    @Test
+    public void testStaticsAreClearedWhenTheBundleIsUninstalled() {
+        assertClearedOn(BundleEvent.UNINSTALLED);
+    }
+
+    private void assertClearedOn(int eventType) {
+        this.cleaner.bundleChanged(new BundleEvent(eventType, new StubBundle(8L)));
+        assertNotNull(Holder.value);
+
+        this.cleaner.bundleChanged(new BundleEvent(eventType, this.bundle));
+        assertNull(Holder.value);
+
+        verify(this.bundleContext);
+    }
+
+    private static final class Holder {
+
+        private static Object value;
+    }
+}
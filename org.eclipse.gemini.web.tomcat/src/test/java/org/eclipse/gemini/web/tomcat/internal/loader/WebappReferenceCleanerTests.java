@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.loader;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.virgo.test.stubs.framework.StubBundle;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleReference;
+
+public class WebappReferenceCleanerTests {
+
+    private final StubBundle bundle = new StubBundle();
+
+    private final ClassLoader webappClassLoader = new ClassLoader(getClass().getClassLoader()) {
+    };
+
+    private final WebappReferenceCleaner cleaner = new WebappReferenceCleaner(this.webappClassLoader, this.bundle);
+
+    @Test
+    public void testIsWebApplicationClassLoader() {
+        assertTrue(this.cleaner.isWebApplicationClassLoader(this.webappClassLoader));
+        assertTrue(this.cleaner.isWebApplicationClassLoader(new ClassLoader(this.webappClassLoader) {
+        }));
+        assertTrue(this.cleaner.isWebApplicationClassLoader(new BundleClassLoader(this.bundle)));
+        assertFalse(this.cleaner.isWebApplicationClassLoader(new BundleClassLoader(new StubBundle(1L))));
+        assertFalse(this.cleaner.isWebApplicationClassLoader(getClass().getClassLoader()));
+        assertFalse(this.cleaner.isWebApplicationClassLoader(null));
+    }
+
+    @Test
+    public void testContextClassLoaderOfOtherThreadsIsReset() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new OtherBundleThread(latch);
+        thread.setContextClassLoader(this.webappClassLoader);
+        thread.start();
+        try {
+            this.cleaner.clearReferencesThreads(true, true, true, true);
+            assertTrue(thread.isAlive());
+            assertSame(this.webappClassLoader.getParent(), thread.getContextClassLoader());
+        } finally {
+            latch.countDown();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testContextClassLoaderOfOtherThreadsIsKeptWhenDisabled() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new OtherBundleThread(latch);
+        thread.setContextClassLoader(this.webappClassLoader);
+        thread.start();
+        try {
+            this.cleaner.clearReferencesThreads(true, true, true, false);
+            assertTrue(thread.isAlive());
+            assertSame(this.webappClassLoader, thread.getContextClassLoader());
+        } finally {
+            latch.countDown();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testPlainThreadOfOtherBundleIsNotStopped() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.setContextClassLoader(this.webappClassLoader);
+        thread.start();
+        try {
+            this.cleaner.clearReferencesThreads(true, true, true, false);
+            assertTrue(thread.isAlive());
+        } finally {
+            latch.countDown();
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testClearReferencesStatic() {
+        Holder.value = new Object();
+        this.cleaner.clearReferencesStatic(Collections.<Class<?>> singletonList(Holder.class));
+        assertNull(Holder.value);
+    }
+
+    private static final class Holder {
+
+        private static Object value;
+    }
+
+    private static final class OtherBundleThread extends Thread {
+
+        private final CountDownLatch latch;
+
+        private OtherBundleThread(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class BundleClassLoader extends ClassLoader implements BundleReference {
+
+        private final Bundle bundle;
+
+        private BundleClassLoader(Bundle bundle) {
+            this.bundle = bundle;
+        }
+
+        @Override
+        public Bundle getBundle() {
+            return this.bundle;
+        }
+    }
+}
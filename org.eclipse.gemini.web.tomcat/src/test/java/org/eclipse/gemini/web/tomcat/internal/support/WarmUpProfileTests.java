@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Apache License v2.0 is available at
+ *   http://www.opensource.org/licenses/apache2.0.php.
+ * You may elect to redistribute this code under either of these licenses.
+ *
+ * Contributors:
+ *   Eclipse Gemini Web contributors - initial contribution
+ *******************************************************************************/
+
+package org.eclipse.gemini.web.tomcat.internal.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WarmUpProfileTests {
+
+    private File profileFile;
+
+    @Before
+    public void setUp() throws IOException {
+        this.profileFile = File.createTempFile("warm-up", ".profile");
+        assertTrue(this.profileFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        this.profileFile.delete();
+    }
+
+    @Test
+    public void testStoreAndLoad() {
+        WarmUpProfile profile = new WarmUpProfile(this.profileFile, 2);
+        assertTrue(profile.getResources().isEmpty());
+        assertTrue(profile.getClasses().isEmpty());
+
+        profile.recordResource("/one.html");
+        profile.recordResource("/two.html");
+        profile.recordResource("/two.html");
+        profile.recordResource("/three.html");
+        profile.recordResource("/three.html");
+        profile.recordResource("/three.html");
+        profile.recordClass("a.First");
+        profile.recordClass("a.Second");
+        profile.recordClass("a.First");
+        profile.recordClass("a.Third");
+        profile.store();
+
+        WarmUpProfile nextProfile = new WarmUpProfile(this.profileFile, 2);
+        assertEquals(Arrays.asList("/three.html", "/two.html"), nextProfile.getResources());
+        assertEquals(Arrays.asList("a.First", "a.Second"), nextProfile.getClasses());
+    }
+
+    @Test
+    public void testEmptyRunKeepsProfile() {
+        WarmUpProfile profile = new WarmUpProfile(this.profileFile, 10);
+        profile.recordResource("/index.html");
+        profile.store();
+
+        new WarmUpProfile(this.profileFile, 10).store();
+
+        assertEquals(Arrays.asList("/index.html"), new WarmUpProfile(this.profileFile, 10).getResources());
+    }
+
+    @Test
+    public void testAwaitWarmUp() {
+        WarmUpProfile profile = new WarmUpProfile(this.profileFile, 10);
+        final CountDownLatch latch = new CountDownLatch(1);
+        profile.warmUp("test", new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        profile.awaitWarmUp();
+        assertEquals(0, latch.getCount());
+        assertFalse(this.profileFile.exists());
+    }
+}